@@ -0,0 +1,165 @@
+package com.demo.kafka.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with the saved baseline and exits with status 1 if any benchmark became
+ * slower, or allocates more per operation, than the given tolerance allows:
+ * <pre>{@code
+ * mvn -Pbenchmark exec:exec@compare [-Djmh.tolerance=0.10]
+ * }</pre>
+ * A difference only counts as a regression if it is also larger than the score errors of both runs added
+ * together, so noise within the confidence intervals is not reported. With {@code --save}, writes the
+ * baseline from a result file instead, keeping only the fields compared:
+ * <pre>{@code
+ * mvn -Pbenchmark exec:exec@save-baseline
+ * }</pre>
+ * Results are only comparable when they were measured on the same hardware and JVM as the baseline.
+ */
+public final class BaselineComparison {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    private static final double ALLOCATION_SLACK_BYTES = 16.0;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BaselineComparison() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args the baseline file, the result file and optionally the tolerance, 0.10 by default; or
+     *             {@code --save}, the result file and the baseline file to write
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if ("--save".equals(args[0])) {
+            save(Path.of(args[1]), Path.of(args[2]));
+            return;
+        }
+        Map<String, JsonNode> baseline = index(Path.of(args[0]));
+        Map<String, JsonNode> current = index(Path.of(args[1]));
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> result : current.entrySet()) {
+            JsonNode base = baseline.get(result.getKey());
+            if (base == null) {
+                System.out.printf("NEW         %s%n", result.getKey());
+                continue;
+            }
+            JsonNode scoreBefore = base.path("primaryMetric");
+            JsonNode scoreAfter = result.getValue().path("primaryMetric");
+            double before = scoreBefore.path("score").asDouble();
+            double after = scoreAfter.path("score").asDouble();
+            boolean higherIsBetter = "thrpt".equals(result.getValue().path("mode").asText());
+            double speedup = higherIsBetter ? (after - before) / before : (before - after) / before;
+            JsonNode allocBefore = allocation(base);
+            JsonNode allocAfter = allocation(result.getValue());
+            boolean slower = speedup < -tolerance && beyondError(scoreBefore, scoreAfter);
+            boolean allocates = allocAfter.path("score").asDouble()
+                    > allocBefore.path("score").asDouble() * (1 + tolerance) + ALLOCATION_SLACK_BYTES
+                    && beyondError(allocBefore, allocAfter);
+            if (slower || allocates) {
+                regressions++;
+            }
+            System.out.printf("%-11s %s: %+.1f%% score (error %.1f%% -> %.1f%%), %.0f -> %.0f B/op%n",
+                    slower || allocates ? "REGRESSION" : "OK", result.getKey(), speedup * 100,
+                    relativeError(scoreBefore), relativeError(scoreAfter),
+                    allocBefore.path("score").asDouble(), allocAfter.path("score").asDouble());
+        }
+        System.out.printf("%d of %d benchmarks regressed beyond %.0f%%%n", regressions, current.size(), tolerance * 100);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes the benchmark, mode, parameters, score with error and allocation rate of each result, under the
+     * names JMH uses, so that the baseline is read like a result file.
+     */
+    private static void save(Path resultFile, Path baselineFile) throws IOException {
+        ArrayNode baseline = MAPPER.createArrayNode();
+        for (JsonNode result : MAPPER.readTree(resultFile.toFile())) {
+            ObjectNode entry = baseline.addObject();
+            entry.set("benchmark", result.path("benchmark"));
+            entry.set("mode", result.path("mode"));
+            if (result.has("params")) {
+                entry.set("params", result.path("params"));
+            }
+            entry.set("primaryMetric", metric(result.path("primaryMetric")));
+            JsonNode allocation = allocation(result);
+            if (!allocation.isMissingNode()) {
+                entry.putObject("secondaryMetrics").set(ALLOCATION_METRIC, metric(allocation));
+            }
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(baselineFile.toFile(), baseline);
+        System.out.printf("Saved %d benchmarks to %s%n", baseline.size(), baselineFile);
+    }
+
+    private static ObjectNode metric(JsonNode metric) {
+        ObjectNode trimmed = MAPPER.createObjectNode();
+        trimmed.set("score", metric.path("score"));
+        trimmed.set("scoreError", metric.path("scoreError"));
+        trimmed.set("scoreUnit", metric.path("scoreUnit"));
+        return trimmed;
+    }
+
+    /**
+     * Indexes the results of a file by benchmark name and parameters.
+     */
+    private static Map<String, JsonNode> index(Path file) throws IOException {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode result : MAPPER.readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Map<String, String> params = new TreeMap<>();
+            for (Map.Entry<String, JsonNode> param : result.path("params").properties()) {
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            if (!params.isEmpty()) {
+                key.append(params);
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the allocation metric of a result, or a missing node if it was measured without {@code -prof gc}.
+     */
+    private static JsonNode allocation(JsonNode result) {
+        for (Map.Entry<String, JsonNode> metric : result.path("secondaryMetrics").properties()) {
+            if (metric.getKey().endsWith(ALLOCATION_METRIC)) {
+                return metric.getValue();
+            }
+        }
+        return MAPPER.missingNode();
+    }
+
+    /**
+     * Returns whether two measurements differ by more than their errors combined; a missing or NaN error, as
+     * JMH reports for a single iteration, counts as zero.
+     */
+    private static boolean beyondError(JsonNode before, JsonNode after) {
+        return Math.abs(after.path("score").asDouble() - before.path("score").asDouble())
+                > error(before) + error(after);
+    }
+
+    private static double error(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0.0 : error;
+    }
+
+    private static double relativeError(JsonNode metric) {
+        double score = metric.path("score").asDouble();
+        return score == 0.0 ? 0.0 : error(metric) / score * 100;
+    }
+}
@@ -0,0 +1,77 @@
+package com.demo.kafka.benchmark;
+
+import com.demo.kafka.config.KafkaWebSocketHandler;
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.MessageDeserializer;
+import com.demo.kafka.payload.MessageSerializer;
+import com.demo.kafka.service.MessageDeduplicator;
+import com.demo.kafka.service.NotificationDigester;
+import com.demo.kafka.websocket.RecentHistory;
+import com.demo.kafka.websocket.SubscriptionRegistry;
+import com.demo.kafka.websocket.WebSocketFanout;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast the lane listener routes a polled batch and queues it for N connected sessions. The
+ * sessions discard what they are sent; their drain tasks run on virtual threads as in production, so they
+ * compete with the listener for CPU. Message ids are left empty so that the deduplicator lets every batch
+ * through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(5)
+public class FanoutBenchmark {
+
+    private static final int BATCH_SIZE = 16;
+
+    @Param({"1", "100", "1000"})
+    public int sessions;
+
+    private WebSocketFanout fanout;
+    private KafkaWebSocketHandler handler;
+    private List<ConsumerRecord<String, KafkaMessage<String>>> batch;
+
+    @Setup
+    public void setup() throws Exception {
+        fanout = new WebSocketFanout();
+        handler = new KafkaWebSocketHandler(fanout, new SubscriptionRegistry(), new MessageDeduplicator(),
+                new NotificationDigester(), new RecentHistory(), null, null);
+        for (int i = 0; i < sessions; i++) {
+            handler.afterConnectionEstablished(new NullSession("session-" + i));
+        }
+        MessageDeserializer<String> deserializer = new MessageDeserializer<>();
+        deserializer.configure(Map.of(MessageDeserializer.LAZY_ENVELOPE_CONFIG, true), false);
+        KafkaMessage<String> template = Messages.message(512, 2);
+        template.setMessageId(null);
+        byte[] record = new MessageSerializer<String>().serialize("notifications", template);
+        long timestamp = System.currentTimeMillis();
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new ConsumerRecord<>("notifications", 0, i, timestamp, TimestampType.CREATE_TIME, 0, record.length,
+                    null, deserializer.deserialize("notifications", record), new RecordHeaders(), Optional.empty()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        fanout.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void deliverBatch() {
+        handler.listen(batch);
+    }
+}
@@ -0,0 +1,54 @@
+package com.demo.kafka.benchmark;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.MessageDeserializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares eager binding with the lazy envelope mode across payload sizes and header counts. The
+ * {@code deserializeAndRoute} variant also reads the fields used for routing, which is what the lane
+ * listeners do with every record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(5)
+public class MessageDeserializerBenchmark {
+
+    @Param({"128", "4096", "65536"})
+    public int payloadSize;
+
+    @Param({"0", "16"})
+    public int headerCount;
+
+    @Param({"false", "true"})
+    public boolean lazyEnvelope;
+
+    private MessageDeserializer<String> deserializer;
+    private byte[] record;
+
+    @Setup
+    public void setup() {
+        deserializer = new MessageDeserializer<>();
+        deserializer.configure(Map.of(MessageDeserializer.LAZY_ENVELOPE_CONFIG, lazyEnvelope), false);
+        record = Messages.record(payloadSize, headerCount);
+    }
+
+    @Benchmark
+    public KafkaMessage<String> deserialize() {
+        return deserializer.deserialize("notifications", new RecordHeaders(), record);
+    }
+
+    @Benchmark
+    public int deserializeAndRoute() {
+        KafkaMessage<String> message = deserializer.deserialize("notifications", new RecordHeaders(), record);
+        Map<String, String> headers = message.getHeaders();
+        return message.getPriority().length() + message.getType().length() + (headers == null ? 0 : headers.size());
+    }
+}
@@ -0,0 +1,46 @@
+package com.demo.kafka.benchmark;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.MessageSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default serializer with the pooled-buffer mode across payload sizes and header counts; run
+ * with {@code -prof gc} to see the allocation rate per operation. Single-threaded, so that the scores do not
+ * depend on how the threads are scheduled on small machines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(5)
+public class MessageSerializerBenchmark {
+
+    @Param({"128", "4096", "65536"})
+    public int payloadSize;
+
+    @Param({"0", "16"})
+    public int headerCount;
+
+    @Param({"false", "true"})
+    public boolean reuseBuffers;
+
+    private MessageSerializer<String> serializer;
+    private KafkaMessage<String> message;
+
+    @Setup
+    public void setup() {
+        serializer = new MessageSerializer<>();
+        serializer.configure(Map.of(MessageSerializer.REUSE_BUFFERS_CONFIG, reuseBuffers), false);
+        message = Messages.message(payloadSize, headerCount);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize("notifications", null, message);
+    }
+}
@@ -0,0 +1,59 @@
+package com.demo.kafka.benchmark;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.MessageSerializer;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test data shared by the benchmarks.
+ */
+final class Messages {
+
+    private Messages() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Returns {@code count} message headers, {@code tenant} and {@code userId} first.
+     */
+    static Map<String, String> headers(int count) {
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            switch (i) {
+                case 0 -> headers.put("tenant", "acme");
+                case 1 -> headers.put("userId", "u-1");
+                default -> headers.put("header-" + i, "value-" + i);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Returns a fully populated notification with a payload of {@code payloadSize} characters.
+     */
+    static KafkaMessage<String> message(int payloadSize, int headerCount) {
+        return KafkaMessage.<String>builder()
+                .messageId("6f1c2a52-9d1e-4c47-9f55-3b0c0a3e2d11")
+                .correlationId("order-42")
+                .type("EVENT")
+                .operation("NOTIFY")
+                .source("benchmark")
+                .success(true)
+                .version("1")
+                .priority("MEDIUM")
+                .timestamp(LocalDateTime.of(2026, 1, 1, 12, 0))
+                .headers(headers(headerCount))
+                .payload("x".repeat(payloadSize))
+                .build();
+    }
+
+    /**
+     * Returns the JSON record value of {@link #message}.
+     */
+    static byte[] record(int payloadSize, int headerCount) {
+        return new MessageSerializer<String>().serialize("notifications", message(payloadSize, headerCount));
+    }
+}
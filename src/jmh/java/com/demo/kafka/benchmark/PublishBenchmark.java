@@ -0,0 +1,82 @@
+package com.demo.kafka.benchmark;
+
+import com.demo.kafka.config.KafkaEventService;
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.MessageSerializer;
+import com.demo.kafka.utils.GlobalConstant;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the publish path of {@link KafkaEventService} (expiry check, in-flight limit, lane selection,
+ * {@link KafkaTemplate} and {@link MessageSerializer}) against a {@link MockProducer} that acknowledges every
+ * record right away, so the broker round trip is left out.
+ * <p>
+ * With the outbox enabled, {@code publishEvent} only appends to the outbox; the path measured here is the one
+ * it takes otherwise, and the one the outbox drainer and the REST endpoints use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 8, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(5)
+public class PublishBenchmark {
+
+    private static final int CLEAR_EVERY = 4096;
+
+    @Param({"128", "4096"})
+    public int payloadSize;
+
+    private KafkaEventService<String> service;
+    private ReusableMockProducer producer;
+    private KafkaMessage<String> message;
+    private int sent;
+
+    @Setup
+    public void setup() {
+        MessageSerializer<KafkaMessage<?>> serializer = new MessageSerializer<>();
+        serializer.configure(Map.of(MessageSerializer.REUSE_BUFFERS_CONFIG, true), false);
+        producer = new ReusableMockProducer(serializer);
+        KafkaTemplate<String, KafkaMessage<?>> template = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+        service = new KafkaEventService<>(template, null, null, null, null, null);
+        message = Messages.message(payloadSize, 2);
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<String, KafkaMessage<?>>> publish() {
+        if (++sent % CLEAR_EVERY == 0) {
+            producer.clear();
+        }
+        return service.publishEventAsync(GlobalConstant.TOPIC_NAME, "u-1", message);
+    }
+
+    /**
+     * A mock producer that survives the template closing it after every send; its history of sent records
+     * is cleared periodically by the benchmark so that it does not grow for the whole run.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class ReusableMockProducer extends MockProducer<String, KafkaMessage<?>> {
+
+        ReusableMockProducer(MessageSerializer serializer) {
+            super(true, null, new StringSerializer(), serializer);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
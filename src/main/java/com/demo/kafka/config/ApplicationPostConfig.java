@@ -19,6 +19,6 @@ public class ApplicationPostConfig {
 
     @PostConstruct
     public void init() {
-        kafkaServiceConfig.createTopic(GlobalConstant.TOPIC_NAME, 3, (short) 1);
+        kafkaServiceConfig.createTopic(GlobalConstant.TOPIC_NAME, GlobalConstant.getTopicPartitions(), (short) 1);
     }
 }
@@ -0,0 +1,199 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.utils.GlobalConstant;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster mode: lets several nodes share the notification stream, each consuming only its own partitions and
+ * serving only the users whose records land on them.
+ * <p>
+ * The lane consumers use {@link PartitionAffinityAssignor}, so partition {@code p} of every lane belongs to the
+ * same node. Each node advertises the partitions it owns, together with the URL clients should connect to, on
+ * the compacted {@link GlobalConstant#CLUSTER_TOPIC_NAME} topic, and reads every other node's advertisement from
+ * it. Only this routing metadata is exchanged between nodes, never notification payloads. A client connecting
+ * to a node that does not own its user's partition is redirected to the owner.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClusterMembership {
+
+    private final KafkaAdmin kafkaAdmin;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final TopicMetadataService topicMetadata;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Advertisement> nodes = new ConcurrentHashMap<>();
+    @Getter
+    private final String nodeId = GlobalConstant.getClusterNodeId();
+
+    private KafkaTemplate<String, String> template;
+    private KafkaMessageListenerContainer<String, String> container;
+    private volatile Set<Integer> advertised = Set.of();
+
+    /**
+     * What a node advertises on the cluster topic.
+     *
+     * @param nodeId      the node ID
+     * @param url         the WebSocket URL clients should use to reach the node
+     * @param partitions  the partitions of the notification topic the node owns
+     * @param heartbeatAt epoch milliseconds at which the advertisement was sent
+     */
+    public record Advertisement(String nodeId, String url, Set<Integer> partitions, long heartbeatAt) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!GlobalConstant.isClusterEnabled() || !GlobalConstant.isKafkaEnabled()) {
+            return;
+        }
+        kafkaAdmin.createOrModifyTopics(TopicBuilder.name(GlobalConstant.CLUSTER_TOPIC_NAME)
+                .partitions(1)
+                .compact()
+                .build());
+        Map<String, Object> producerProps = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, GlobalConstant.getBootstrapServer(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+        Map<String, Object> consumerProps = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, GlobalConstant.getBootstrapServer(),
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.GROUP_ID_CONFIG, GlobalConstant.getGroup() + "-cluster-" + nodeId,
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        ContainerProperties containerProps = new ContainerProperties(GlobalConstant.CLUSTER_TOPIC_NAME);
+        containerProps.setMessageListener((MessageListener<String, String>) record -> onAdvertisement(record.key(), record.value()));
+        container = new KafkaMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(consumerProps), containerProps);
+        container.start();
+        log.info("Cluster mode enabled as node {}", nodeId);
+    }
+
+    /**
+     * Advertises the partitions this node currently owns; sent periodically so that other nodes can tell live
+     * nodes from dead ones.
+     */
+    @Scheduled(fixedDelay = 5_000)
+    public void heartbeat() {
+        if (template == null) {
+            return;
+        }
+        Set<Integer> owned = ownedPartitions();
+        Advertisement advertisement = new Advertisement(nodeId, GlobalConstant.getClusterAdvertisedUrl(), owned,
+                System.currentTimeMillis());
+        try {
+            template.send(GlobalConstant.CLUSTER_TOPIC_NAME, nodeId, objectMapper.writeValueAsString(advertisement));
+            if (!owned.equals(advertised)) {
+                log.info("Node {} now owns partitions {}", nodeId, owned);
+                advertised = owned;
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Error encoding cluster advertisement: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the node owning the partition a record key is written to, if it is another live node.
+     *
+     * @param key the record key, e.g. a user ID
+     * @return the owning node, empty if it is this node, unknown or cluster mode is off
+     */
+    public Optional<Advertisement> remoteOwnerOf(String key) {
+        if (template == null || key == null) {
+            return Optional.empty();
+        }
+        Optional<Integer> partitions = topicMetadata.getCached(GlobalConstant.TOPIC_NAME)
+                .filter(TopicMetadataService.TopicMetadata::exists)
+                .map(TopicMetadataService.TopicMetadata::partitions);
+        if (partitions.isEmpty()) {
+            return Optional.empty();
+        }
+        int partition = partitionFor(key, partitions.get());
+        long cutoff = System.currentTimeMillis() - GlobalConstant.getClusterNodeTtlMs();
+        return nodes.values().stream()
+                .filter(node -> node.heartbeatAt() >= cutoff && node.partitions().contains(partition))
+                .filter(node -> !node.nodeId().equals(nodeId))
+                .findFirst();
+    }
+
+    /**
+     * Returns the live nodes of the cluster, including this one.
+     *
+     * @return the last advertisement of every node
+     */
+    public Collection<Advertisement> getNodes() {
+        return nodes.values();
+    }
+
+    /**
+     * Returns the partition the producer's default partitioner writes a keyed record to.
+     */
+    static int partitionFor(String key, int partitions) {
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (template == null) {
+            return;
+        }
+        template.send(GlobalConstant.CLUSTER_TOPIC_NAME, nodeId, null);
+        template.flush();
+        container.stop();
+        template.destroy();
+    }
+
+    private void onAdvertisement(String key, String value) {
+        if (value == null) {
+            nodes.remove(key);
+            return;
+        }
+        try {
+            nodes.put(key, objectMapper.readValue(value, Advertisement.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring invalid cluster advertisement from {}: {}", key, e.getMessage());
+        }
+    }
+
+    private Set<Integer> ownedPartitions() {
+        Set<Integer> owned = new TreeSet<>();
+        MessageListenerContainer medium = listenerRegistry.getListenerContainer(GlobalConstant.MEDIUM_PRIORITY_LISTENER_ID);
+        if (medium != null && medium.getAssignedPartitions() != null) {
+            for (TopicPartition partition : medium.getAssignedPartitions()) {
+                owned.add(partition.partition());
+            }
+        }
+        return owned;
+    }
+}
@@ -0,0 +1,269 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.utils.GlobalConstant;
+import com.demo.kafka.utils.LogThrottle;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.adapter.FilteringMessageListenerAdapter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Owns the listener containers created for dynamic subscriptions.
+ * <p>
+ * Containers are keyed by topic, group and client ID: attaching a listener to a key that already has a
+ * container adds it to that container's listeners instead of opening another KafkaConsumer. A container whose
+ * last listener was detached is kept for {@link GlobalConstant#getConsumerIdleTimeoutMs()} so that a quick
+ * re-subscription reuses it, and is then stopped and removed by {@link #reclaimIdle()}. Expired records are
+ * dropped before they reach the listeners, as in the containers built by {@link KafkaConfig}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConsumerContainerRegistry {
+
+    private final ConsumerFactory<String, KafkaMessage<?>> consumerFactory;
+    private final Map<Key, ManagedContainer> containers = new ConcurrentHashMap<>();
+
+    /**
+     * Identifies a managed container.
+     *
+     * @param topics   the consumed topics
+     * @param groupId  the consumer group ID
+     * @param clientId the client ID
+     */
+    public record Key(List<String> topics, String groupId, String clientId) {
+    }
+
+    /**
+     * A listener attached to a managed container; closing it detaches the listener.
+     *
+     * @param key      the container key
+     * @param listener the attached listener
+     * @param registry the registry owning the container
+     */
+    public record Registration(Key key, MessageListener<String, KafkaMessage<?>> listener,
+                               ConsumerContainerRegistry registry) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            registry.detach(this);
+        }
+    }
+
+    /**
+     * Attaches a listener to the container for the given key, creating and starting the container if needed.
+     * A container that stopped on its own is replaced, and the listeners still attached to it move to the new
+     * one. The container is created while the key is locked but started after, since starting waits for the
+     * broker.
+     *
+     * @param key      the container key
+     * @param listener the listener to attach
+     * @param <T>      the payload type
+     * @return the registration used to detach the listener
+     * @throws IllegalStateException if a new container is needed and the registry is full
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> Registration attach(Key key, MessageListener<String, KafkaMessage<T>> listener) {
+        MessageListener<String, KafkaMessage<?>> attached = (MessageListener) listener;
+        ManagedContainer[] created = new ManagedContainer[1];
+        containers.compute(key, (k, existing) -> {
+            ManagedContainer managed = existing;
+            if (managed == null || managed.isStopped()) {
+                if (existing == null && containers.size() >= GlobalConstant.getMaxConsumerContainers()) {
+                    throw new IllegalStateException("Too many consumer containers");
+                }
+                managed = create(k);
+                if (existing != null) {
+                    managed.listeners.addAll(existing.listeners);
+                }
+                created[0] = managed;
+            }
+            managed.listeners.add(attached);
+            managed.idleSince = 0L;
+            return managed;
+        });
+        if (created[0] != null) {
+            start(key, created[0]);
+        }
+        return new Registration(key, attached, this);
+    }
+
+    /**
+     * Detaches a listener; the container is reclaimed once it has stayed without listeners long enough.
+     *
+     * @param registration the registration returned by {@link #attach}
+     */
+    public void detach(Registration registration) {
+        containers.computeIfPresent(registration.key(), (key, managed) -> {
+            if (managed.listeners.remove(registration.listener()) && managed.listeners.isEmpty()) {
+                managed.idleSince = System.currentTimeMillis();
+            }
+            return managed;
+        });
+    }
+
+    /**
+     * Pauses consumption for the given key without releasing the consumer.
+     *
+     * @param key the container key
+     * @return false if no container exists for the key
+     */
+    public boolean pause(Key key) {
+        ManagedContainer managed = containers.get(key);
+        if (managed == null) {
+            return false;
+        }
+        managed.container.pause();
+        return true;
+    }
+
+    /**
+     * Resumes consumption for the given key.
+     *
+     * @param key the container key
+     * @return false if no container exists for the key
+     */
+    public boolean resume(Key key) {
+        ManagedContainer managed = containers.get(key);
+        if (managed == null) {
+            return false;
+        }
+        managed.container.resume();
+        return true;
+    }
+
+    /**
+     * Stops the container for the given key and detaches all of its listeners.
+     *
+     * @param key the container key
+     * @return false if no container exists for the key
+     */
+    public boolean stop(Key key) {
+        ManagedContainer managed = containers.remove(key);
+        if (managed == null) {
+            return false;
+        }
+        managed.container.stop();
+        return true;
+    }
+
+    /**
+     * Stops and removes containers that have had no listener for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelay = 30_000)
+    public void reclaimIdle() {
+        reclaimIdle(System.currentTimeMillis());
+    }
+
+    void reclaimIdle(long now) {
+        long cutoff = now - GlobalConstant.getConsumerIdleTimeoutMs();
+        List<ManagedContainer> reclaimed = new ArrayList<>();
+        for (Key key : containers.keySet()) {
+            containers.computeIfPresent(key, (k, managed) -> {
+                if ((managed.idleSince != 0L && managed.idleSince <= cutoff) || managed.isStopped()) {
+                    log.info("Reclaiming idle consumer container {}", k);
+                    reclaimed.add(managed);
+                    return null;
+                }
+                return managed;
+            });
+        }
+        reclaimed.forEach(managed -> managed.container.stop());
+    }
+
+    /**
+     * Returns the listener count and state of every managed container.
+     *
+     * @return a snapshot by container key
+     */
+    public Map<Key, Map<String, Object>> getContainers() {
+        Map<Key, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        containers.forEach((key, managed) -> snapshot.put(key, Map.of(
+                "listeners", managed.listeners.size(),
+                "running", managed.container.isRunning(),
+                "paused", managed.container.isPauseRequested())));
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        containers.values().forEach(managed -> managed.container.stop());
+        containers.clear();
+    }
+
+    private ManagedContainer create(Key key) {
+        ManagedContainer managed = new ManagedContainer();
+        ContainerProperties containerProps = new ContainerProperties(key.topics().toArray(String[]::new));
+        containerProps.setGroupId(key.groupId());
+        containerProps.setClientId(key.clientId());
+        containerProps.setMessageListener(new FilteringMessageListenerAdapter<>(managed, KafkaConfig::isExpired));
+        managed.container = newContainer(containerProps);
+        return managed;
+    }
+
+    KafkaMessageListenerContainer<String, KafkaMessage<?>> newContainer(ContainerProperties containerProps) {
+        return new KafkaMessageListenerContainer<>(consumerFactory, containerProps);
+    }
+
+    private void start(Key key, ManagedContainer managed) {
+        try {
+            managed.container.start();
+            log.info("Started consumer container {}", key);
+        } catch (RuntimeException e) {
+            containers.remove(key, managed);
+            throw e;
+        } finally {
+            managed.starting = false;
+        }
+    }
+
+    /**
+     * A container together with the listeners it dispatches every record to.
+     */
+    private static final class ManagedContainer implements MessageListener<String, KafkaMessage<?>> {
+
+        private static final LogThrottle LISTENER_ERRORS = new LogThrottle(1_000L);
+
+        private final List<MessageListener<String, KafkaMessage<?>>> listeners = new CopyOnWriteArrayList<>();
+        private KafkaMessageListenerContainer<String, KafkaMessage<?>> container;
+        private volatile long idleSince;
+        private volatile boolean starting = true;
+
+        /**
+         * A container is stopped once it is no longer running after its start completed.
+         */
+        private boolean isStopped() {
+            return !starting && !container.isRunning();
+        }
+
+        @Override
+        public void onMessage(ConsumerRecord<String, KafkaMessage<?>> data) {
+            for (MessageListener<String, KafkaMessage<?>> listener : listeners) {
+                try {
+                    listener.onMessage(data);
+                } catch (RuntimeException e) {
+                    long suppressed = LISTENER_ERRORS.tryAcquire();
+                    if (suppressed >= 0) {
+                        log.error("Error in listener for {}-{}: {} ({} similar errors suppressed)", data.topic(),
+                                data.partition(), e.getMessage(), suppressed);
+                    }
+                }
+            }
+        }
+    }
+}
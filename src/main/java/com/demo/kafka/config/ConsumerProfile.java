@@ -0,0 +1,54 @@
+package com.demo.kafka.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+
+import java.util.Map;
+
+/**
+ * Consumer fetch and poll presets applied by {@link KafkaConfig#consumerFactory()}.
+ */
+public enum ConsumerProfile {
+
+    /**
+     * Kafka client defaults.
+     */
+    DEFAULT(null, null, null),
+
+    /**
+     * Lets the broker accumulate larger fetches and hands big batches to the batch listeners. The high priority
+     * lane keeps low latency fetch settings regardless.
+     */
+    THROUGHPUT(500, 64 * 1024, 100),
+
+    /**
+     * Returns records as soon as any are available, in small batches.
+     */
+    LOW_LATENCY(100, 1, 10);
+
+    private final Integer maxPollRecords;
+    private final Integer fetchMinBytes;
+    private final Integer fetchMaxWaitMs;
+
+    ConsumerProfile(Integer maxPollRecords, Integer fetchMinBytes, Integer fetchMaxWaitMs) {
+        this.maxPollRecords = maxPollRecords;
+        this.fetchMinBytes = fetchMinBytes;
+        this.fetchMaxWaitMs = fetchMaxWaitMs;
+    }
+
+    /**
+     * Adds the settings of this profile to a consumer configuration.
+     *
+     * @param props the consumer configuration to update
+     */
+    public void apply(Map<String, Object> props) {
+        if (maxPollRecords != null) {
+            props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        }
+        if (fetchMinBytes != null) {
+            props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        }
+        if (fetchMaxWaitMs != null) {
+            props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.service.NotificationDigester;
+import com.demo.kafka.utils.GlobalConstant;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the open windows of {@link NotificationDigester} on the compacted
+ * {@link GlobalConstant#DIGEST_TOPIC_NAME} topic, one record per window keyed by its group fingerprint, so
+ * that a restarted node still sends the digests of the bursts it was absorbing.
+ * <p>
+ * Windows that absorbed notifications are written every few seconds and deleted with a tombstone once closed;
+ * the topic is read back to its end at startup, before the listeners start consuming. A crash loses at most
+ * the counts of the last interval.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DigestCheckpointer {
+
+    private final KafkaAdmin kafkaAdmin;
+    private final NotificationDigester digester;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private KafkaTemplate<String, String> template;
+
+    @PostConstruct
+    public void start() {
+        if (!digester.isEnabled() || !GlobalConstant.isKafkaEnabled()) {
+            return;
+        }
+        kafkaAdmin.createOrModifyTopics(TopicBuilder.name(GlobalConstant.DIGEST_TOPIC_NAME)
+                .partitions(1)
+                .compact()
+                .build());
+        restore();
+        Map<String, Object> producerProps = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, GlobalConstant.getBootstrapServer(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps));
+    }
+
+    /**
+     * Writes the windows that changed since the last checkpoint.
+     */
+    @Scheduled(fixedDelay = 5_000)
+    public void checkpoint() {
+        if (template == null) {
+            return;
+        }
+        for (Map.Entry<String, NotificationDigester.WindowState> change : digester.takeCheckpoints().entrySet()) {
+            try {
+                String value = change.getValue() == null ? null : objectMapper.writeValueAsString(change.getValue());
+                template.send(GlobalConstant.DIGEST_TOPIC_NAME, change.getKey(), value);
+            } catch (JsonProcessingException e) {
+                log.error("Error encoding digest window {}: {}", change.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (template == null) {
+            return;
+        }
+        checkpoint();
+        template.flush();
+        template.destroy();
+    }
+
+    /**
+     * Reads the topic from the beginning up to the end offsets taken at startup, giving up after
+     * {@link GlobalConstant#getDigestRestoreTimeoutMs()}.
+     */
+    private void restore() {
+        Map<String, Object> consumerProps = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, GlobalConstant.getBootstrapServer(),
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        int restored = 0;
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<String, String>(consumerProps).createConsumer()) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo partition : consumer.partitionsFor(GlobalConstant.DIGEST_TOPIC_NAME)) {
+                partitions.add(new TopicPartition(partition.topic(), partition.partition()));
+            }
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            long deadline = System.currentTimeMillis() + GlobalConstant.getDigestRestoreTimeoutMs();
+            while (partitions.stream().anyMatch(partition -> consumer.position(partition) < endOffsets.get(partition))) {
+                if (System.currentTimeMillis() >= deadline) {
+                    log.warn("Digest windows only partially restored after {} ms", GlobalConstant.getDigestRestoreTimeoutMs());
+                    break;
+                }
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(100))) {
+                    restore(record);
+                    restored++;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Error restoring digest windows from Kafka: {}", e.getMessage());
+        }
+        log.info("Restored {} digest window records, {} windows open", restored, digester.getStats().get("openWindows"));
+    }
+
+    private void restore(ConsumerRecord<String, String> record) {
+        try {
+            digester.restore(record.key(), record.value() == null
+                    ? null
+                    : objectMapper.readValue(record.value(), NotificationDigester.WindowState.class));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Ignoring invalid digest window {}: {}", record.key(), e.getMessage());
+        }
+    }
+}
@@ -6,11 +6,15 @@ import com.demo.kafka.payload.KafkaMessage;
 import com.demo.kafka.payload.MessageDeserializer;
 import com.demo.kafka.payload.MessageSerializer;
 import com.demo.kafka.utils.GlobalConstant;
+import com.demo.kafka.utils.MessageExpiry;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.context.annotation.Bean;
@@ -19,9 +23,13 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.KafkaListenerErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
 
@@ -34,6 +42,8 @@ import static com.demo.kafka.utils.GlobalConstant.getGroup;
 @RequiredArgsConstructor
 public class KafkaConfig {
 
+    private final MeterRegistry meterRegistry;
+
     /**
      * Creates a KafkaAdmin bean to manage Kafka topics.
      *
@@ -51,13 +61,35 @@ public class KafkaConfig {
     }
 
     /**
-     * Creates an ErrorHandler bean to handle errors during message consumption.
+     * Creates an ErrorHandler bean to handle errors during message consumption: failed records are moved to
+     * the next retry tier or the dead-letter topic without blocking their partition.
      *
      * @return ErrorHandler instance
      */
     @Bean
     public CommonErrorHandler errorHandler() {
-        return new KafkaMessageErrorHandler();
+        return new KafkaMessageErrorHandler(deadLetterRecoverer());
+    }
+
+    /**
+     * Creates the recoverer publishing failed records as chosen by {@link RetryTopics}. Records that could
+     * not be deserialized are published with their original bytes; other records with their original JSON,
+     * which {@link MessageSerializer} forwards unchanged.
+     *
+     * @return DeadLetterPublishingRecoverer instance
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterRecoverer() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, getBootstrapServer());
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, new KafkaTemplate<>(new DefaultKafkaProducerFactory<String, byte[]>(configProps)));
+        templates.put(KafkaMessage.class, kafkaTemplate());
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(templates, RetryTopics::destination);
+        recoverer.setHeadersFunction(RetryTopics::retryHeaders);
+        return recoverer;
     }
 
     /**
@@ -71,7 +103,10 @@ public class KafkaConfig {
     }
 
     /**
-     * Creates a ProducerFactory bean to produce messages to Kafka.
+     * Creates a ProducerFactory bean to produce messages to Kafka, tuned by the configured
+     * {@link ProducerProfile}. With sticky partitioning enabled, record keys are kept but ignored for
+     * partitioning, trading per-key ordering for fuller batches. The producer's client metrics are bound to
+     * the meter registry.
      *
      * @return ProducerFactory instance
      */
@@ -82,7 +117,15 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, MessageSerializer.class);
         configProps.put(ProducerConfig.RETRIES_CONFIG, 1);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(MessageSerializer.FORMAT_CONFIG, GlobalConstant.getMessageFormat());
+        configProps.put(MessageSerializer.REUSE_BUFFERS_CONFIG, true);
+        ProducerProfile.valueOf(GlobalConstant.getProducerProfile()).apply(configProps);
+        if (GlobalConstant.isStickyPartitioning()) {
+            configProps.put(ProducerConfig.PARTITIONER_IGNORE_KEYS_CONFIG, true);
+        }
+        DefaultKafkaProducerFactory<String, KafkaMessage<?>> factory = new DefaultKafkaProducerFactory<>(configProps);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     /**
@@ -96,7 +139,11 @@ public class KafkaConfig {
     }
 
     /**
-     * Creates a ConsumerFactory bean to consume messages from Kafka.
+     * Creates a ConsumerFactory bean to consume messages from Kafka, tuned by the configured
+     * {@link ConsumerProfile}. In cluster mode partitions are assigned by {@link PartitionAffinityAssignor}.
+     * Deserialization failures do not fail the poll: the record is passed on with a null value and the
+     * error in a header, and the error handler dead-letters it. The consumers' client metrics, including the
+     * lag of every assigned partition, are bound to the meter registry.
      *
      * @return ConsumerFactory instance
      */
@@ -105,11 +152,20 @@ public class KafkaConfig {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, getBootstrapServer());
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, MessageDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, MessageDeserializer.class);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, getGroup());
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
         props.put(ConsumerConfig.RETRY_BACKOFF_MS_CONFIG, 1000L);
-        return new DefaultKafkaConsumerFactory<>(props);
+        props.put(MessageDeserializer.LAZY_ENVELOPE_CONFIG, true);
+        ConsumerProfile.valueOf(GlobalConstant.getConsumerProfile()).apply(props);
+        if (GlobalConstant.isClusterEnabled()) {
+            props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, PartitionAffinityAssignor.class.getName());
+            props.put(PartitionAffinityAssignor.NODE_ID_CONFIG, GlobalConstant.getClusterNodeId());
+        }
+        DefaultKafkaConsumerFactory<String, KafkaMessage<?>> factory = new DefaultKafkaConsumerFactory<>(props);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
@@ -118,7 +174,8 @@ public class KafkaConfig {
         properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, getBootstrapServer());
         properties.put(ConsumerConfig.GROUP_ID_CONFIG, getGroup());
         properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, MessageDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        properties.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, MessageDeserializer.class);
         properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
         properties.put(ConsumerConfig.RETRY_BACKOFF_MS_CONFIG, 1000L);
@@ -127,7 +184,7 @@ public class KafkaConfig {
 
     /**
      * Creates a ConcurrentKafkaListenerContainerFactory bean to manage Kafka
-     * listener containers.
+     * listener containers. Expired messages are filtered out before they reach a listener.
      *
      * @return ConcurrentKafkaListenerContainerFactory instance
      */
@@ -136,7 +193,50 @@ public class KafkaConfig {
         ConcurrentKafkaListenerContainerFactory<String, KafkaMessage<?>> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setCommonErrorHandler(errorHandler());
+        factory.setRecordFilterStrategy(KafkaConfig::isExpired);
+        factory.setAckDiscarded(true);
         return factory;
     }
 
+    /**
+     * Creates a ConcurrentKafkaListenerContainerFactory bean for batch listeners, which receive every record
+     * returned by a poll as one {@code List}. Expired messages are removed from the batch.
+     *
+     * @return ConcurrentKafkaListenerContainerFactory instance
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaMessage<?>> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaMessage<?>> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setCommonErrorHandler(errorHandler());
+        factory.setBatchListener(true);
+        factory.setRecordFilterStrategy(KafkaConfig::isExpired);
+        return factory;
+    }
+
+    /**
+     * Creates a ConcurrentKafkaListenerContainerFactory bean for the retry tier listeners. Acknowledgment is
+     * manual, so that a listener can leave a record that is not due yet and pause until it is.
+     *
+     * @return ConcurrentKafkaListenerContainerFactory instance
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaMessage<?>> retryKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaMessage<?>> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setCommonErrorHandler(errorHandler());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setRecordFilterStrategy(KafkaConfig::isExpired);
+        factory.setAckDiscarded(true);
+        return factory;
+    }
+
+    static boolean isExpired(ConsumerRecord<String, KafkaMessage<?>> record) {
+        boolean expired = MessageExpiry.isExpired(record.value());
+        if (expired) {
+            MessageExpiry.dropped(MessageExpiry.Stage.CONSUME);
+        }
+        return expired;
+    }
+
 }
@@ -1,40 +1,53 @@
 package com.demo.kafka.config;
 
+import com.demo.kafka.exception.MessageExpiredException;
+import com.demo.kafka.exception.PublishRejectedException;
+import com.demo.kafka.outbox.NotificationOutbox;
 import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.PriorityLane;
 import com.demo.kafka.utils.GlobalConstant;
+import com.demo.kafka.utils.LogThrottle;
+import com.demo.kafka.utils.MessageExpiry;
+import com.demo.kafka.utils.NotificationMetrics;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.admin.AdminClient;
-import org.apache.kafka.clients.admin.ListTopicsOptions;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.listener.ContainerProperties;
-import org.springframework.kafka.listener.KafkaMessageListenerContainer;
 import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class KafkaEventService<T> {
 
+    private static final LogThrottle PUBLISH_ERRORS = new LogThrottle(1_000L);
+
     private final KafkaTemplate<String, KafkaMessage<?>> kafkaTemplate;
     private final KafkaAdmin kafkaAdmin;
-    private final ConsumerFactory<String, KafkaMessage<?>> consumerFactory;
+    private final ConsumerContainerRegistry consumerContainers;
+    private final TopicMetadataService topicMetadata;
+    private final NotificationOutbox outbox;
     @Getter
     private final KafkaConfig kafkaConfig;
+    private final Semaphore inFlightSends = new Semaphore(GlobalConstant.getMaxInFlightSends());
 
     /**
-     * Creates a new Kafka topic.
+     * Creates a new Kafka topic, together with its priority lane topics when lanes are enabled and the retry
+     * and dead-letter topics of each lane (see {@link RetryTopics}).
      *
      * @param topicName         the name of the topic
      * @param partitions        the number of partitions
@@ -42,22 +55,31 @@ public class KafkaEventService<T> {
      */
     public void createTopic(String topicName, int partitions, short replicationFactor) {
         if (GlobalConstant.isKafkaEnabled()) {
-            NewTopic topic = new NewTopic(topicName, partitions, replicationFactor);
-            kafkaAdmin.createOrModifyTopics(topic);
+            List<String> names = managedTopics(topicName);
+            NewTopic[] topics = names.stream()
+                    .map(name -> new NewTopic(name, partitions, replicationFactor))
+                    .toArray(NewTopic[]::new);
+            kafkaAdmin.createOrModifyTopics(topics);
+            topicMetadata.invalidate(names);
         }
     }
 
     /**
-     * Deletes an existing Kafka topic.
+     * Deletes an existing Kafka topic, together with its priority lane, retry and dead-letter topics.
      *
      * @param topicName the name of the topic
      */
     public void deleteTopic(String topicName) {
         if (GlobalConstant.isKafkaEnabled()) {
-            try (AdminClient adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
-                adminClient.deleteTopics(Collections.singletonList(topicName)).all().get();
-            } catch (InterruptedException | ExecutionException e) {
+            List<String> topics = managedTopics(topicName);
+            try {
+                topicMetadata.adminClient().deleteTopics(topics).all().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
                 log.error("Exception while deleting topic: {}", e.getMessage());
+            } finally {
+                topicMetadata.invalidate(topics);
             }
         }
     }
@@ -75,37 +97,150 @@ public class KafkaEventService<T> {
     }
 
     /**
-     * Publishes an event to a Kafka topic.
+     * Publishes an event to a Kafka topic without waiting for the result. When the outbox is enabled the
+     * message is only written to it and forwarded by the outbox drainer, so the caller never waits for the
+     * broker; otherwise failures are only logged.
      *
      * @param topicName the name of the topic
      * @param key       the key of the message
      * @param value     the message payload
      */
     public void publishEvent(String topicName, String key, KafkaMessage<?> value) {
+        if (outbox.offer(topicName, key, value)) {
+            return;
+        }
         if (GlobalConstant.isKafkaEnabled()) {
-            kafkaTemplate.send(new ProducerRecord<>(topicName, key, value));
+            publishEventAsync(topicName, key, value).whenComplete((result, e) -> {
+                long suppressed = e == null ? -1L : PUBLISH_ERRORS.tryAcquire();
+                if (suppressed >= 0) {
+                    log.error("Error publishing message {} to {}: {} ({} similar errors suppressed)",
+                            value.getMessageId(), topicName, e.getMessage(), suppressed);
+                }
+            });
+        }
+    }
+
+    /**
+     * Publishes an event to a Kafka topic. When priority lanes are enabled the record goes to the lane topic
+     * matching the message priority (see {@link PriorityLane}).
+     * <p>
+     * At most {@link GlobalConstant#getMaxInFlightSends()} sends may be waiting for an acknowledgement; when
+     * the limit is reached the caller waits up to {@link GlobalConstant#getPublishAcquireTimeoutMs()} for a
+     * slot, after which the returned future fails with a {@link PublishRejectedException}. Messages whose
+     * expiration time has already passed fail with a {@link MessageExpiredException} without being sent. The
+     * time to the acknowledgement is recorded in {@link NotificationMetrics#PUBLISH_LATENCY}.
+     *
+     * @param topicName the name of the topic
+     * @param key       the key of the message
+     * @param value     the message payload
+     * @return a future completed once the broker has acknowledged the record
+     */
+    public CompletableFuture<SendResult<String, KafkaMessage<?>>> publishEventAsync(String topicName, String key,
+                                                                                   KafkaMessage<?> value) {
+        if (!GlobalConstant.isKafkaEnabled()) {
+            return CompletableFuture.failedFuture(new PublishRejectedException("Kafka is disabled"));
+        }
+        if (MessageExpiry.isExpired(value)) {
+            MessageExpiry.dropped(MessageExpiry.Stage.PUBLISH);
+            return CompletableFuture.failedFuture(new MessageExpiredException(
+                    "Message expired at " + value.getExpirationTime()));
         }
+        try {
+            if (!inFlightSends.tryAcquire(GlobalConstant.getPublishAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new PublishRejectedException("Too many messages in flight"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            String laneTopic = GlobalConstant.isPriorityLanesEnabled()
+                    ? PriorityLane.of(value.getPriority()).topic(topicName)
+                    : topicName;
+            long start = System.nanoTime();
+            return kafkaTemplate.send(new ProducerRecord<>(laneTopic, key, value))
+                    .whenComplete((result, e) -> {
+                        inFlightSends.release();
+                        if (e == null) {
+                            NotificationMetrics.PUBLISH_LATENCY.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            inFlightSends.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Publishes several events to a Kafka topic. The records are handed to the producer back to back so
+     * that they share producer batches.
+     *
+     * @param topicName   the name of the topic
+     * @param values      the message payloads
+     * @param keyFunction derives the record key of each message
+     * @return one future per message, in the same order
+     */
+    public List<CompletableFuture<SendResult<String, KafkaMessage<?>>>> publishBatch(
+            String topicName, List<? extends KafkaMessage<?>> values, Function<KafkaMessage<?>, String> keyFunction) {
+        List<CompletableFuture<SendResult<String, KafkaMessage<?>>>> results = new ArrayList<>(values.size());
+        for (KafkaMessage<?> value : values) {
+            results.add(publishEventAsync(topicName, keyFunction.apply(value), value));
+        }
+        return results;
     }
 
     /**
-     * Consumes events from a Kafka topic.
+     * Queues a message that could not be published in the outbox, to be sent once the broker is reachable.
+     *
+     * @param topicName the name of the topic
+     * @param key       the key of the message
+     * @param value     the message payload
+     * @return false if the outbox is disabled or could not store the message
+     */
+    public boolean spill(String topicName, String key, KafkaMessage<?> value) {
+        return outbox.offer(topicName, key, value);
+    }
+
+    /**
+     * Returns the number of sends still waiting for an acknowledgement.
+     *
+     * @return the in-flight send count
+     */
+    public int getInFlightSends() {
+        return GlobalConstant.getMaxInFlightSends() - inFlightSends.availablePermits();
+    }
+
+    /**
+     * Consumes events from a Kafka topic and, when priority lanes are enabled, its lane topics. Calls with the
+     * same topic, group and client ID share one consumer; see {@link ConsumerContainerRegistry}.
      *
      * @param topicName       the name of the topic
      * @param groupId         the group ID for the consumer
      * @param clientSuffixId  the client suffix ID for the consumer
      * @param messageListener the message listener to handle consumed messages
+     * @return the registration to close once the listener is no longer needed, or null if Kafka is disabled
      */
-    public void consumeEvents(String topicName, String groupId, String clientSuffixId,
-                              MessageListener<String, KafkaMessage<T>> messageListener) {
-        if (GlobalConstant.isKafkaEnabled()) {
-            ContainerProperties containerProps = new ContainerProperties(topicName);
-            containerProps.setGroupId(groupId);
-            containerProps.setClientId(clientSuffixId);
-            containerProps.setMessageListener(messageListener);
-            KafkaMessageListenerContainer<String, KafkaMessage<T>> container = new KafkaMessageListenerContainer<>(
-                    consumerFactory, containerProps);
-            container.start();
+    public ConsumerContainerRegistry.Registration consumeEvents(String topicName, String groupId, String clientSuffixId,
+                                                                MessageListener<String, KafkaMessage<T>> messageListener) {
+        if (!GlobalConstant.isKafkaEnabled()) {
+            return null;
         }
+        ConsumerContainerRegistry.Key key = new ConsumerContainerRegistry.Key(
+                List.of(laneTopics(topicName)), groupId, clientSuffixId);
+        return consumerContainers.attach(key, messageListener);
+    }
+
+    private static List<String> managedTopics(String topicName) {
+        List<String> topics = new ArrayList<>();
+        for (String laneTopic : laneTopics(topicName)) {
+            topics.add(laneTopic);
+            topics.addAll(RetryTopics.topics(laneTopic));
+        }
+        return topics;
+    }
+
+    private static String[] laneTopics(String topicName) {
+        return GlobalConstant.isPriorityLanesEnabled() ? PriorityLane.topics(topicName) : new String[]{topicName};
     }
 
 //    @KafkaListener(topics = GlobalConstant.TOPIC_NAME)
@@ -113,16 +248,13 @@ public class KafkaEventService<T> {
 //        log.info("Received message: {}", message);
 //    }
 
+    /**
+     * Returns whether a topic exists, answered from the {@link TopicMetadataService} cache when possible.
+     *
+     * @param topicName the name of the topic
+     * @return true if the topic exists
+     */
     public boolean topicExists(String topicName) {
-        try (AdminClient adminClient = AdminClient.create(kafkaConfig.kafkaProperties())) {
-            ListTopicsOptions options = new ListTopicsOptions();
-            options.listInternal(false);
-            Set<String> topicNames = adminClient.listTopics(options).names().get();
-            return topicNames.contains(topicName);
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Error checking topic existence: {}", e.getMessage());
-            Thread.currentThread().interrupt();
-            return false;
-        }
+        return topicMetadata.exists(topicName);
     }
 }
@@ -0,0 +1,177 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.PriorityLane;
+import com.demo.kafka.utils.GlobalConstant;
+import com.demo.kafka.utils.MessageExpiry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a time range of notifications straight from Kafka, for clients whose gap is older than
+ * {@link com.demo.kafka.websocket.RecentHistory} holds.
+ * <p>
+ * Uses a short-lived consumer that is assigned every partition of the notification lanes, seeks them with
+ * {@code offsetsForTimes} and never commits offsets. A read stops at the end of the range, after
+ * {@link GlobalConstant#getResumeMaxSeekRecords()} records or after {@link GlobalConstant#getResumeSeekTimeoutMs()},
+ * whichever comes first. The record limit is shared out among the partitions, and a read cut short returns
+ * only the records up to the earliest point at which a partition stopped, so that it never skips older
+ * records of one partition while returning newer ones of another. Tombstones and expired notifications are
+ * skipped and do not count towards the limit.
+ * <p>
+ * Reads requested through {@link #readAsync} run on at most {@link GlobalConstant#getResumeConcurrency()}
+ * threads, with {@link GlobalConstant#getResumeQueueSize()} more waiting; further requests are rejected.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KafkaHistoryReader {
+
+    private final ConsumerFactory<String, KafkaMessage<?>> consumerFactory;
+    private final ExecutorService reader = new ThreadPoolExecutor(GlobalConstant.getResumeConcurrency(),
+            GlobalConstant.getResumeConcurrency(), 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(GlobalConstant.getResumeQueueSize()),
+            Thread.ofPlatform().name("history-reader-", 0).daemon().factory(), new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * Reads the notifications published in {@code [from, to)} off the calling thread, see {@link #read}.
+     *
+     * @param from epoch milliseconds of the first record to read
+     * @param to   epoch milliseconds at which to stop
+     * @return the notifications ordered by record timestamp
+     * @throws RejectedExecutionException if too many reads are running or waiting
+     */
+    public CompletableFuture<List<KafkaMessage<?>>> readAsync(long from, long to) {
+        return CompletableFuture.supplyAsync(() -> read(from, to), reader);
+    }
+
+    /**
+     * Reads the notifications published in {@code [from, to)}.
+     *
+     * @param from epoch milliseconds of the first record to read
+     * @param to   epoch milliseconds at which to stop
+     * @return the notifications ordered by record timestamp; empty if Kafka is disabled or unreachable
+     */
+    public List<KafkaMessage<?>> read(long from, long to) {
+        if (!GlobalConstant.isKafkaEnabled() || from >= to) {
+            return List.of();
+        }
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.GROUP_ID_CONFIG, GlobalConstant.getGroup() + "-history");
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        int maxRecords = GlobalConstant.getResumeMaxSeekRecords();
+        Map<TopicPartition, List<ConsumerRecord<String, KafkaMessage<?>>>> read = new HashMap<>();
+        Set<TopicPartition> truncated = new HashSet<>();
+        try (Consumer<String, KafkaMessage<?>> consumer = consumerFactory.createConsumer(null, "history", null, overrides)) {
+            Map<TopicPartition, Long> timestamps = new HashMap<>();
+            for (String topic : laneTopics()) {
+                for (PartitionInfo partition : consumer.partitionsFor(topic)) {
+                    timestamps.put(new TopicPartition(topic, partition.partition()), from);
+                }
+            }
+            consumer.assign(timestamps.keySet());
+            Set<TopicPartition> remaining = new HashSet<>();
+            for (Map.Entry<TopicPartition, OffsetAndTimestamp> offset : consumer.offsetsForTimes(timestamps).entrySet()) {
+                if (offset.getValue() != null) {
+                    consumer.seek(offset.getKey(), offset.getValue().offset());
+                    remaining.add(offset.getKey());
+                }
+            }
+            consumer.pause(difference(timestamps.keySet(), remaining));
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(remaining);
+            int perPartition = Math.max(1, maxRecords / Math.max(1, remaining.size()));
+            long deadline = System.currentTimeMillis() + GlobalConstant.getResumeSeekTimeoutMs();
+            while (!remaining.isEmpty() && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, KafkaMessage<?>> record : consumer.poll(Duration.ofMillis(100))) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (!remaining.contains(partition)) {
+                        continue;
+                    }
+                    List<ConsumerRecord<String, KafkaMessage<?>>> records = read.computeIfAbsent(partition, p -> new ArrayList<>());
+                    if (record.timestamp() < to && record.value() != null
+                            && !MessageExpiry.isExpired(record.value())) {
+                        records.add(record);
+                    }
+                    boolean done = record.timestamp() >= to || record.offset() + 1 >= endOffsets.get(partition);
+                    if (done || records.size() >= perPartition) {
+                        if (!done) {
+                            truncated.add(partition);
+                        }
+                        remaining.remove(partition);
+                        consumer.pause(List.of(partition));
+                    }
+                }
+                remaining.removeIf(partition -> consumer.position(partition) >= endOffsets.get(partition));
+            }
+            truncated.addAll(remaining);
+        } catch (RuntimeException e) {
+            log.error("Error reading notification history from Kafka: {}", e.getMessage());
+            truncated.addAll(read.keySet());
+        }
+        long cutoff = Long.MAX_VALUE;
+        for (TopicPartition partition : truncated) {
+            List<ConsumerRecord<String, KafkaMessage<?>>> records = read.get(partition);
+            cutoff = Math.min(cutoff, records == null || records.isEmpty() ? from - 1 : records.getLast().timestamp());
+        }
+        List<ConsumerRecord<String, KafkaMessage<?>>> records = new ArrayList<>();
+        for (List<ConsumerRecord<String, KafkaMessage<?>>> partitionRecords : read.values()) {
+            for (ConsumerRecord<String, KafkaMessage<?>> record : partitionRecords) {
+                if (record.timestamp() <= cutoff) {
+                    records.add(record);
+                }
+            }
+        }
+        if (!truncated.isEmpty()) {
+            log.debug("Notification history read stopped early in {} partitions, returning records up to {}",
+                    truncated.size(), cutoff);
+        }
+        records.sort(Comparator.comparingLong(ConsumerRecord::timestamp));
+        List<KafkaMessage<?>> messages = new ArrayList<>(Math.min(records.size(), maxRecords));
+        for (int i = 0; i < records.size() && i < maxRecords; i++) {
+            messages.add(records.get(i).value());
+        }
+        return messages;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reader.shutdownNow();
+    }
+
+    private static String[] laneTopics() {
+        return GlobalConstant.isPriorityLanesEnabled()
+                ? PriorityLane.topics(GlobalConstant.TOPIC_NAME)
+                : new String[]{GlobalConstant.TOPIC_NAME};
+    }
+
+    private static Set<TopicPartition> difference(Set<TopicPartition> all, Set<TopicPartition> excluded) {
+        Set<TopicPartition> result = new HashSet<>(all);
+        result.removeAll(excluded);
+        return result;
+    }
+}
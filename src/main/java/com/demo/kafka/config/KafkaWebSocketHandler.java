@@ -1,48 +1,400 @@
 package com.demo.kafka.config;
 
 import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.PriorityLane;
+import com.demo.kafka.service.MessageDeduplicator;
+import com.demo.kafka.service.NotificationDigester;
 import com.demo.kafka.utils.GlobalConstant;
+import com.demo.kafka.utils.MessageExpiry;
+import com.demo.kafka.utils.NotificationMetrics;
+import com.demo.kafka.websocket.DeliveryFormat;
+import com.demo.kafka.websocket.OutboundFrame;
+import com.demo.kafka.websocket.RecentHistory;
+import com.demo.kafka.websocket.SubscriptionRegistry;
+import com.demo.kafka.websocket.SubscriptionRequest;
+import com.demo.kafka.websocket.WebSocketFanout;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaNull;
+import org.springframework.kafka.support.serializer.DeserializationException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class KafkaWebSocketHandler extends TextWebSocketHandler {
 
-    private final Set<WebSocketSession> sessions = new CopyOnWriteArraySet<>();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String CONNECTED_AT = "connectedAtSequence";
+    private static final String RESUMED_AT = "resumedAt";
+    private static final String USER_ID_PARAM = "userId";
+    private static final CloseStatus REDIRECT = new CloseStatus(4003, "Redirected to owning node");
+    private static final String LANES_ENABLED = "#{T(com.demo.kafka.utils.GlobalConstant).isPriorityLanesEnabled()}";
+    private static final String GROUP = "#{T(com.demo.kafka.utils.GlobalConstant).getGroup()}";
+
+    private final WebSocketFanout fanout;
+    private final SubscriptionRegistry subscriptions;
+    private final MessageDeduplicator deduplicator;
+    private final NotificationDigester digester;
+    private final RecentHistory history;
+    private final KafkaHistoryReader historyReader;
+    private final ClusterMembership cluster;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
     @Override
-    public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.add(session);
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        if (redirect(session)) {
+            return;
+        }
+        subscriptions.register(session.getId());
+        fanout.register(session);
+        session.getAttributes().put(CONNECTED_AT, history.nextSequence());
         log.info("New WebSocket connection established: {}", session.getId());
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session);
+        fanout.unregister(session);
+        subscriptions.unregister(session.getId());
         log.info("WebSocket connection closed: {} with status {}", session.getId(), status);
     }
 
-    @KafkaListener(topics = GlobalConstant.TOPIC_NAME)
-    public void listen(KafkaMessage<String> message) {
+    /**
+     * In cluster mode, sends a client identified by a {@value #USER_ID_PARAM} query parameter to the node that
+     * consumes its user's partition, with a {@code {"action":"redirect","url":...}} frame followed by a close.
+     */
+    private boolean redirect(WebSocketSession session) throws IOException {
+        if (session.getUri() == null) {
+            return false;
+        }
+        String userId = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst(USER_ID_PARAM);
+        Optional<ClusterMembership.Advertisement> owner = cluster.remoteOwnerOf(userId);
+        if (owner.isEmpty()) {
+            return false;
+        }
+        String url = UriComponentsBuilder.fromUriString(owner.get().url()).queryParam(USER_ID_PARAM, userId).toUriString();
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of("action", "redirect", "url", url))));
+        session.close(REDIRECT);
+        log.debug("Redirected WebSocket session {} to node {}", session.getId(), owner.get().nodeId());
+        return true;
+    }
+
+    /**
+     * Handles subscription control messages sent by the client; see {@link SubscriptionRequest}.
+     */
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        Map<String, Object> reply;
+        try {
+            SubscriptionRequest request = objectMapper.readValue(message.getPayload(), SubscriptionRequest.class);
+            if (SubscriptionRequest.SUBSCRIBE.equals(request.getAction())) {
+                String id = subscriptions.subscribe(session.getId(), request.getId(), request.getFilters());
+                reply = Map.of("action", "subscribed", "id", id);
+            } else if (SubscriptionRequest.UNSUBSCRIBE.equals(request.getAction())) {
+                subscriptions.unsubscribe(session.getId(), request.getId());
+                reply = Map.of("action", "unsubscribed", "id", String.valueOf(request.getId()));
+            } else if (SubscriptionRequest.RESUME.equals(request.getAction())) {
+                reply = resume(session, request);
+            } else if (SubscriptionRequest.FORMAT.equals(request.getAction())) {
+                reply = format(session, request);
+            } else {
+                reply = Map.of("action", "error", "message", "Unsupported action: " + request.getAction());
+            }
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            reply = Map.of("action", "error", "message", e.getMessage());
+        }
+        if (reply != null) {
+            reply(session.getId(), reply);
+        }
+    }
+
+    private void reply(String sessionId, Map<String, Object> reply) throws JsonProcessingException {
+        fanout.send(sessionId, OutboundFrame.of(objectMapper.writeValueAsString(reply), null, PriorityLane.HIGH));
+    }
+
+    /**
+     * Switches the session to a projected and/or delta encoding, or back to full documents when neither is
+     * requested.
+     */
+    private Map<String, Object> format(WebSocketSession session, SubscriptionRequest request) {
+        List<String> fields = request.getFields() == null ? List.of() : request.getFields();
+        boolean delta = Boolean.TRUE.equals(request.getDelta());
+        fanout.setFormat(session.getId(), fields.isEmpty() && !delta ? null : new DeliveryFormat(fields, delta));
+        return Map.of("action", "formatted", "fields", fields, "delta", delta);
+    }
+
+    /**
+     * Queues the notifications a reconnecting client missed, up to the moment it connected; later ones reach
+     * it live. The gap is served from {@link RecentHistory} when it still holds {@code lastMessageId}. Otherwise
+     * the part older than the buffer is read from Kafka starting at {@code since}, if given, followed by the
+     * whole buffer. The Kafka read runs on the {@link KafkaHistoryReader} threads, and the reply follows the
+     * replayed frames once it is done; a session may resume once per {@link GlobalConstant#getResumeMinIntervalMs()}.
+     *
+     * @return the reply, or null if it is sent once the Kafka read completes
+     */
+    private Map<String, Object> resume(WebSocketSession session, SubscriptionRequest request) throws JsonProcessingException {
+        long now = System.currentTimeMillis();
+        Long resumedAt = (Long) session.getAttributes().get(RESUMED_AT);
+        if (resumedAt != null && now - resumedAt < GlobalConstant.getResumeMinIntervalMs()) {
+            return Map.of("action", "error", "message",
+                    "Resume rate limited, retry in " + (resumedAt + GlobalConstant.getResumeMinIntervalMs() - now) + " ms");
+        }
+        session.getAttributes().put(RESUMED_AT, now);
+        long connectedAt = (Long) session.getAttributes().getOrDefault(CONNECTED_AT, history.nextSequence());
+        List<RecentHistory.Entry> buffered = history.after(request.getLastMessageId(), connectedAt);
+        if (buffered != null) {
+            return replay(session.getId(), List.of(), buffered, "memory");
+        }
+        List<RecentHistory.Entry> entries = history.before(connectedAt);
+        if (request.getSince() == null) {
+            return replay(session.getId(), List.of(), entries, "memory");
+        }
+        try {
+            historyReader.readAsync(request.getSince(), history.oldestRecordedAt()).thenAccept(messages -> {
+                try {
+                    reply(session.getId(), replay(session.getId(), messages, entries, "kafka"));
+                } catch (JsonProcessingException e) {
+                    log.error("Error replaying history to WebSocket session {}: {}", session.getId(), e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            session.getAttributes().remove(RESUMED_AT);
+            return Map.of("action", "error", "message", "Too many history reads in progress, retry later");
+        }
+        return null;
+    }
+
+    /**
+     * Queues the frames of the messages read from Kafka and of the buffered entries that match the session's
+     * subscriptions, and returns the reply describing the replay.
+     */
+    private Map<String, Object> replay(String sessionId, List<KafkaMessage<?>> messages, List<RecentHistory.Entry> buffered,
+                                       String source) throws JsonProcessingException {
+        List<OutboundFrame> frames = new ArrayList<>();
+        for (KafkaMessage<?> message : messages) {
+            if (subscriptions.matches(sessionId, message)) {
+                frames.add(toFrame(message));
+            }
+        }
+        for (RecentHistory.Entry entry : buffered) {
+            if (subscriptions.matches(sessionId, entry.message())) {
+                frames.add(entry.frame().replay());
+            }
+        }
+        if (!frames.isEmpty()) {
+            fanout.send(Map.of(sessionId, frames));
+        }
+        return Map.of("action", "resumed", "source", source, "replayed", frames.size());
+    }
+
+    /**
+     * High priority lane: one consumer per partition and large polls, so it is never starved. Fetches return as
+     * soon as any record is available whatever the consumer profile, so that the lane is not held back waiting
+     * for a full fetch. Not started when priority lanes are disabled, so that the lane topic is neither
+     * subscribed to nor auto-created.
+     */
+    @KafkaListener(id = GlobalConstant.HIGH_PRIORITY_LISTENER_ID, topics = GlobalConstant.HIGH_PRIORITY_TOPIC_NAME,
+            groupId = GROUP + "-high", containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = LANES_ENABLED,
+            concurrency = "#{@listenerConcurrency.forTopic('" + GlobalConstant.HIGH_PRIORITY_TOPIC_NAME + "')}",
+            properties = {"max.poll.records=500", "fetch.min.bytes=1", "fetch.max.wait.ms=10"})
+    public void listenHighPriority(List<ConsumerRecord<String, KafkaMessage<String>>> records) {
+        deliver(records);
+    }
+
+    /**
+     * Medium priority lane: one consumer per partition, polling as configured by the consumer profile. Stays in
+     * the {@link GlobalConstant#getGroup()} group that consumed the topic before there were lanes, so that its
+     * committed offsets are kept.
+     */
+    @KafkaListener(id = GlobalConstant.MEDIUM_PRIORITY_LISTENER_ID, topics = GlobalConstant.TOPIC_NAME,
+            groupId = GROUP, containerFactory = "batchKafkaListenerContainerFactory",
+            concurrency = "#{@listenerConcurrency.forTopic('" + GlobalConstant.TOPIC_NAME + "')}")
+    public void listen(List<ConsumerRecord<String, KafkaMessage<String>>> records) {
+        deliver(records);
+    }
+
+    /**
+     * Low priority lane: a single consumer with small polls, paused by {@link PriorityLaneGovernor} while the
+     * high priority lane is lagging. Not started when priority lanes are disabled.
+     */
+    @KafkaListener(id = GlobalConstant.LOW_PRIORITY_LISTENER_ID, topics = GlobalConstant.LOW_PRIORITY_TOPIC_NAME,
+            groupId = GROUP + "-low", containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = LANES_ENABLED, concurrency = "1", properties = "max.poll.records=50")
+    public void listenLowPriority(List<ConsumerRecord<String, KafkaMessage<String>>> records) {
+        deliver(records);
+    }
+
+    /**
+     * Retry tier 0, see {@link RetryTopics}.
+     */
+    @KafkaListener(id = GlobalConstant.RETRY_LISTENER_ID + "0", topics = "#{T(com.demo.kafka.config.RetryTopics).tierTopics(0)}",
+            containerFactory = "retryKafkaListenerContainerFactory")
+    public void listenRetry(ConsumerRecord<String, KafkaMessage<String>> record, Acknowledgment acknowledgment) throws Exception {
+        retry(record, acknowledgment);
+    }
+
+    /**
+     * Retry tier 1, see {@link RetryTopics}.
+     */
+    @KafkaListener(id = GlobalConstant.RETRY_LISTENER_ID + "1", topics = "#{T(com.demo.kafka.config.RetryTopics).tierTopics(1)}",
+            containerFactory = "retryKafkaListenerContainerFactory")
+    public void listenSecondRetry(ConsumerRecord<String, KafkaMessage<String>> record, Acknowledgment acknowledgment) throws Exception {
+        retry(record, acknowledgment);
+    }
+
+    /**
+     * Retry tier 2, the last one before the dead-letter topic, see {@link RetryTopics}.
+     */
+    @KafkaListener(id = GlobalConstant.RETRY_LISTENER_ID + "2", topics = "#{T(com.demo.kafka.config.RetryTopics).tierTopics(2)}",
+            containerFactory = "retryKafkaListenerContainerFactory")
+    public void listenLastRetry(ConsumerRecord<String, KafkaMessage<String>> record, Acknowledgment acknowledgment) throws Exception {
+        retry(record, acknowledgment);
+    }
+
+    /**
+     * Routes a polled batch and queues each session's frames in one step, so a session's drain task is
+     * scheduled once per batch and the frames go out together as one array frame. A message that cannot be
+     * routed, or has no value because it could not be deserialized or is a tombstone, fails the batch at its
+     * record: the frames of the messages before it are still sent, and the error handler moves it to a retry
+     * tier, or straight to the dead-letter topic if it has no value, and redelivers the rest. The failed
+     * record is named rather than its index, since expired records were filtered out of the batch.
+     * <p>
+     * Records the age of each record and the time taken by the whole batch in {@link NotificationMetrics}.
+     */
+    void deliver(List<ConsumerRecord<String, KafkaMessage<String>>> records) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<String, KafkaMessage<String>> record : records) {
+            NotificationMetrics.CONSUME_LATENCY.record(Math.max(0L, now - record.timestamp()), TimeUnit.MILLISECONDS);
+        }
+        Map<String, List<OutboundFrame>> framesBySession = new HashMap<>();
         try {
-            String json = objectMapper.writeValueAsString(message);
-            log.info("Sending message to {} WebSocket sessions: {}", sessions.size(), json);
-            for (WebSocketSession session : sessions) {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(json));
-                    log.info("Message sent to session: {}", session.getId());
+            for (ConsumerRecord<String, KafkaMessage<String>> record : records) {
+                KafkaMessage<String> message = valueOf(record);
+                try {
+                    route(message, record.timestamp(), framesBySession);
+                } catch (Exception e) {
+                    throw new BatchListenerFailedException("Error queueing message for WebSocket sessions", e, record);
                 }
             }
-        } catch (Exception e) {
-            log.error("Error sending message to WebSocket session: {}", e.getMessage());
+        } finally {
+            if (!framesBySession.isEmpty()) {
+                log.debug("Queueing {} messages for {} WebSocket sessions", records.size(), framesBySession.size());
+                fanout.send(framesBySession);
+            }
+            NotificationMetrics.FANOUT_DURATION.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Delivers a retried record once it is due. Until then the record is not acknowledged and the consumer
+     * pauses for the remaining delay instead of blocking the thread; since every record of a tier waits
+     * equally long, the records behind it are not due earlier.
+     */
+    private void retry(ConsumerRecord<String, KafkaMessage<String>> record, Acknowledgment acknowledgment) throws Exception {
+        long remaining = RetryTopics.remainingDelay(record);
+        if (remaining > 0) {
+            acknowledgment.nack(Duration.ofMillis(remaining));
+            return;
+        }
+        Map<String, List<OutboundFrame>> framesBySession = new HashMap<>();
+        route(valueOf(record), record.timestamp(), framesBySession);
+        if (!framesBySession.isEmpty()) {
+            fanout.send(framesBySession);
+        }
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Returns the message of a record, failing it as undeserializable if it has none: the value deserializer
+     * returned null or the record is a tombstone.
+     */
+    private static KafkaMessage<String> valueOf(ConsumerRecord<String, KafkaMessage<String>> record) {
+        Object value = record.value();
+        if (value == null || value instanceof KafkaNull) {
+            throw new BatchListenerFailedException("Record could not be deserialized",
+                    new DeserializationException("Record has no value", null, false, null), record);
+        }
+        return record.value();
+    }
+
+    /**
+     * Sends the digests of the {@link NotificationDigester} windows that ended.
+     */
+    @Scheduled(fixedDelay = 1_000)
+    public void flushDigests() {
+        Map<String, List<OutboundFrame>> framesBySession = new HashMap<>();
+        for (KafkaMessage<String> digest : digester.closeWindows(System.currentTimeMillis())) {
+            try {
+                queue(digest, toFrame(digest), framesBySession);
+            } catch (JsonProcessingException e) {
+                log.error("Error encoding digest {}: {}", digest.getMessageId(), e.getMessage());
+            }
         }
+        if (!framesBySession.isEmpty()) {
+            fanout.send(framesBySession);
+        }
+    }
+
+    /**
+     * Adds the frame of a message to the sessions it is routed to, unless the digester absorbs it. The frame
+     * is built first, so a message failing here is not skipped as a duplicate when it is retried.
+     */
+    private void route(KafkaMessage<String> message, long timestamp, Map<String, List<OutboundFrame>> framesBySession) throws Exception {
+        OutboundFrame frame = toFrame(message);
+        if (!digester.admit(message, timestamp)) {
+            return;
+        }
+        queue(message, frame, framesBySession);
+    }
+
+    /**
+     * Records a message about to be delivered and adds its frame to the sessions it is routed to, unless it was
+     * already delivered. Only delivered messages are marked as seen, so messages absorbed by the digester do
+     * not take up room in the {@link MessageDeduplicator}.
+     */
+    private void queue(KafkaMessage<String> message, OutboundFrame frame, Map<String, List<OutboundFrame>> framesBySession) {
+        if (!deduplicator.firstSeen(message.getMessageId())) {
+            log.debug("Skipping duplicate message {}", message.getMessageId());
+            return;
+        }
+        history.record(message, frame);
+        for (String sessionId : subscriptions.route(message)) {
+            framesBySession.computeIfAbsent(sessionId, id -> new ArrayList<>()).add(frame);
+        }
+    }
+
+    /**
+     * Builds the single frame shared by every session. The record bytes received from Kafka are forwarded
+     * as-is; the message is only encoded again when it did not come from a record.
+     */
+    private OutboundFrame toFrame(KafkaMessage<?> message) throws JsonProcessingException {
+        PriorityLane lane = PriorityLane.of(message.getPriority());
+        byte[] json = message.getRawValue() != null ? message.getRawValue() : objectMapper.writeValueAsBytes(message);
+        return OutboundFrame.notification(json, message.getCorrelationId(), lane, MessageExpiry.expiresAt(message));
     }
-}
\ No newline at end of file
+}
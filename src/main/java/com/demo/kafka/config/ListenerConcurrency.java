@@ -0,0 +1,33 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.utils.GlobalConstant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves listener concurrency from the partition count of the consumed topic, so that every partition gets
+ * its own consumer thread without starting idle ones. Referenced from {@code @KafkaListener} as
+ * {@code #{@listenerConcurrency.forTopic('topic')}}.
+ */
+@Slf4j
+@Component("listenerConcurrency")
+@RequiredArgsConstructor
+public class ListenerConcurrency {
+
+    private final TopicMetadataService topicMetadata;
+
+    /**
+     * Returns the number of consumer threads to start for a topic.
+     *
+     * @param topic the consumed topic
+     * @return the partition count, or {@link GlobalConstant#getTopicPartitions()} if it cannot be described
+     */
+    public String forTopic(String topic) {
+        int partitions = topicMetadata.partitions(topic).orElseGet(() -> {
+            log.warn("Could not describe topic {}, using {} consumers", topic, GlobalConstant.getTopicPartitions());
+            return GlobalConstant.getTopicPartitions();
+        });
+        return String.valueOf(partitions);
+    }
+}
@@ -0,0 +1,74 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.outbox.NotificationOutbox;
+import com.demo.kafka.service.HotKeyDetector;
+import com.demo.kafka.service.MessageDeduplicator;
+import com.demo.kafka.service.NotificationDigester;
+import com.demo.kafka.utils.MessageExpiry;
+import com.demo.kafka.websocket.WebSocketFanout;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Exposes the counters kept by the pipeline components as meters, read only when the registry is scraped.
+ * The latency meters live in {@link com.demo.kafka.utils.NotificationMetrics}; consumer lag per partition
+ * and the other Kafka client metrics are bound by the listeners registered in {@link KafkaConfig}.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationMeterBinder implements MeterBinder {
+
+    private final MessageDeduplicator deduplicator;
+    private final NotificationDigester digester;
+    private final HotKeyDetector hotKeyDetector;
+    private final NotificationOutbox outbox;
+    private final WebSocketFanout fanout;
+    private final ConsumerContainerRegistry consumerContainers;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (MessageExpiry.Stage stage : MessageExpiry.Stage.values()) {
+            FunctionCounter.builder("notifications.expired.dropped", stage, MessageExpiry::getDropped)
+                    .description("Expired notifications dropped")
+                    .tag("stage", stage.name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionCounter.builder("notifications.dedup.lookups", deduplicator, d -> stat(d.getStats(), "lookups"))
+                .description("Message ids checked for duplicates")
+                .register(registry);
+        FunctionCounter.builder("notifications.dedup.duplicates", deduplicator, d -> stat(d.getStats(), "duplicates"))
+                .description("Duplicate notifications skipped")
+                .register(registry);
+        FunctionCounter.builder("notifications.digest.absorbed", digester, d -> stat(d.getStats(), "absorbed"))
+                .description("Notifications held back and summarized in a digest")
+                .register(registry);
+        FunctionCounter.builder("notifications.digest.sent", digester, d -> stat(d.getStats(), "digests"))
+                .description("Digests sent in place of absorbed notifications")
+                .register(registry);
+        Gauge.builder("notifications.digest.windows", digester, d -> stat(d.getStats(), "openWindows"))
+                .description("Open digest windows")
+                .register(registry);
+        Gauge.builder("notifications.hot.keys", hotKeyDetector, detector -> detector.getHotKeys().size())
+                .description("Record keys above the hot key share threshold in the last window")
+                .register(registry);
+        Gauge.builder("notifications.outbox.backlog", outbox, NotificationOutbox::size)
+                .description("Messages waiting in the local outbox")
+                .register(registry);
+        Gauge.builder("notifications.sessions", fanout, WebSocketFanout::size)
+                .description("Connected WebSocket sessions")
+                .register(registry);
+        Gauge.builder("notifications.consumer.containers", consumerContainers, c -> c.getContainers().size())
+                .description("Listener containers of dynamic subscriptions")
+                .register(registry);
+    }
+
+    private static double stat(Map<String, Object> stats, String name) {
+        return ((Number) stats.get(name)).doubleValue();
+    }
+}
@@ -0,0 +1,102 @@
+package com.demo.kafka.config;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.TopicPartition;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Assigns partition {@code p} of every topic to node {@code p % nodes}, where the nodes are the distinct
+ * {@value #NODE_ID_CONFIG} values of the group members in sorted order; the members of one node then share its
+ * partitions round-robin.
+ * <p>
+ * Since the priority lanes are consumed by separate groups, range or sticky assignment would spread the same
+ * partition number of each lane over different nodes. With this assignor, every lane group running on the same
+ * set of nodes puts partition {@code p} on the same node, so all messages of one record key land on one node.
+ */
+public class PartitionAffinityAssignor implements ConsumerPartitionAssignor, Configurable {
+
+    /**
+     * Consumer property carrying the ID of the node the consumer runs on.
+     */
+    public static final String NODE_ID_CONFIG = "cluster.node.id";
+
+    private String nodeId = "";
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object configured = configs.get(NODE_ID_CONFIG);
+        if (configured != null) {
+            nodeId = configured.toString();
+        }
+    }
+
+    @Override
+    public ByteBuffer subscriptionUserData(Set<String> topics) {
+        return ByteBuffer.wrap(nodeId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public GroupAssignment assign(Cluster metadata, GroupSubscription groupSubscription) {
+        Map<String, Subscription> subscriptions = groupSubscription.groupSubscription();
+        Map<String, List<TopicPartition>> assignments = new HashMap<>();
+        Set<String> topics = new TreeSet<>();
+        for (Map.Entry<String, Subscription> member : subscriptions.entrySet()) {
+            assignments.put(member.getKey(), new ArrayList<>());
+            topics.addAll(member.getValue().topics());
+        }
+        for (String topic : topics) {
+            Integer partitions = metadata.partitionCountForTopic(topic);
+            if (partitions == null) {
+                continue;
+            }
+            TreeMap<String, List<String>> membersByNode = new TreeMap<>();
+            for (Map.Entry<String, Subscription> member : subscriptions.entrySet()) {
+                if (member.getValue().topics().contains(topic)) {
+                    membersByNode.computeIfAbsent(node(member.getValue()), node -> new ArrayList<>()).add(member.getKey());
+                }
+            }
+            membersByNode.values().forEach(members -> members.sort(String::compareTo));
+            List<List<String>> nodes = new ArrayList<>(membersByNode.values());
+            for (int partition = 0; partition < partitions; partition++) {
+                List<String> members = nodes.get(partition % nodes.size());
+                String member = members.get((partition / nodes.size()) % members.size());
+                assignments.get(member).add(new TopicPartition(topic, partition));
+            }
+        }
+        Map<String, Assignment> result = new HashMap<>();
+        assignments.forEach((member, partitions) -> result.put(member, new Assignment(partitions)));
+        return new GroupAssignment(result);
+    }
+
+    @Override
+    public void onAssignment(Assignment assignment, ConsumerGroupMetadata metadata) {
+        // Stateless
+    }
+
+    @Override
+    public String name() {
+        return "partition-affinity";
+    }
+
+    private static String node(Subscription subscription) {
+        ByteBuffer userData = subscription.userData();
+        if (userData == null) {
+            return "";
+        }
+        byte[] bytes = new byte[userData.remaining()];
+        userData.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
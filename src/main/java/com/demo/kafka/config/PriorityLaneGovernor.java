@@ -0,0 +1,62 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.utils.GlobalConstant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Weights consumption towards the high priority lane: while its consumers lag behind by more than
+ * {@link GlobalConstant#getHighPriorityLagThreshold()} records, the low priority listener is paused so that
+ * the broker, the listener threads and the WebSocket queues serve high priority messages first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PriorityLaneGovernor {
+
+    private static final String RECORDS_LAG_MAX = "records-lag-max";
+
+    private final KafkaListenerEndpointRegistry registry;
+
+    @Scheduled(fixedDelay = 500)
+    public void balance() {
+        if (!GlobalConstant.isKafkaEnabled() || !GlobalConstant.isPriorityLanesEnabled()) {
+            return;
+        }
+        MessageListenerContainer high = registry.getListenerContainer(GlobalConstant.HIGH_PRIORITY_LISTENER_ID);
+        MessageListenerContainer low = registry.getListenerContainer(GlobalConstant.LOW_PRIORITY_LISTENER_ID);
+        if (high == null || low == null || !high.isRunning() || !low.isRunning()) {
+            return;
+        }
+        double lag = maxLag(high);
+        long threshold = GlobalConstant.getHighPriorityLagThreshold();
+        if (lag > threshold && !low.isPauseRequested()) {
+            log.info("High priority lane lagging by {} records, pausing low priority lane", (long) lag);
+            low.pause();
+        } else if (lag <= threshold / 2 && low.isPauseRequested()) {
+            log.info("High priority lane caught up, resuming low priority lane");
+            low.resume();
+        }
+    }
+
+    private static double maxLag(MessageListenerContainer container) {
+        double lag = 0;
+        for (Map<MetricName, ? extends Metric> metrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : metrics.entrySet()) {
+                if (RECORDS_LAG_MAX.equals(metric.getKey().name())
+                        && metric.getValue().metricValue() instanceof Double value && !value.isNaN()) {
+                    lag = Math.max(lag, value);
+                }
+            }
+        }
+        return lag;
+    }
+}
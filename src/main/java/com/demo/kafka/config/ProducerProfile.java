@@ -0,0 +1,58 @@
+package com.demo.kafka.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+
+/**
+ * Producer batching and compression presets applied by {@link KafkaConfig#producerFactory()}.
+ */
+public enum ProducerProfile {
+
+    /**
+     * Kafka client defaults.
+     */
+    DEFAULT(null, null, null, null),
+
+    /**
+     * Waits briefly to fill large compressed batches; best for sustained notification volume.
+     */
+    THROUGHPUT(20, 256 * 1024, "lz4", 5),
+
+    /**
+     * Sends as soon as possible without compression; best for sparse, latency-sensitive traffic.
+     */
+    LOW_LATENCY(0, 16 * 1024, "none", 5);
+
+    private final Integer lingerMs;
+    private final Integer batchSize;
+    private final String compressionType;
+    private final Integer maxInFlightRequests;
+
+    ProducerProfile(Integer lingerMs, Integer batchSize, String compressionType, Integer maxInFlightRequests) {
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    /**
+     * Adds the settings of this profile to a producer configuration.
+     *
+     * @param configProps the producer configuration to update
+     */
+    public void apply(Map<String, Object> configProps) {
+        if (lingerMs != null) {
+            configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        }
+        if (batchSize != null) {
+            configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        }
+        if (compressionType != null) {
+            configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        }
+        if (maxInFlightRequests != null) {
+            configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequests);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.payload.PriorityLane;
+import com.demo.kafka.utils.GlobalConstant;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Topic names and routing of the non-blocking retry pipeline.
+ * <p>
+ * A record that fails in a lane listener is not retried in place, which would stall its partition, but
+ * republished to the first retry tier {@code <lane>.retry-<delayMs>}. Every further failure moves it one tier
+ * up, the delay growing by {@link GlobalConstant#getRetryDelayMultiplier()}, and after the last tier it lands
+ * on the dead-letter topic {@code <lane>.dlt} with the original bytes and the error headers. Records that
+ * cannot be deserialized go to the dead-letter topic directly. Retried records keep their partition, so a key
+ * stays on the node owning it in cluster mode.
+ */
+public final class RetryTopics {
+
+    /**
+     * Number of retry tiers before a record is dead-lettered.
+     */
+    public static final int TIERS = 3;
+
+    /**
+     * Header counting the retry tiers a record has been through.
+     */
+    public static final String ATTEMPT_HEADER = "x-retry-attempt";
+
+    /**
+     * Header with the epoch milliseconds before which a retried record must not be processed.
+     */
+    public static final String DUE_AT_HEADER = "x-retry-due-at";
+
+    private static final String RETRY_SUFFIX = ".retry-";
+    private static final String DLT_SUFFIX = ".dlt";
+
+    private RetryTopics() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Returns the delay of a retry tier.
+     *
+     * @param tier the tier, starting at 0
+     * @return the delay in milliseconds
+     */
+    public static long delayMs(int tier) {
+        long delay = GlobalConstant.getRetryBaseDelayMs();
+        for (int i = 0; i < tier; i++) {
+            delay *= GlobalConstant.getRetryDelayMultiplier();
+        }
+        return delay;
+    }
+
+    /**
+     * Returns the retry topic of a tier for a lane topic.
+     *
+     * @param laneTopic the lane topic
+     * @param tier      the tier, starting at 0
+     * @return the retry topic name
+     */
+    public static String retryTopic(String laneTopic, int tier) {
+        return laneTopic + RETRY_SUFFIX + delayMs(tier);
+    }
+
+    /**
+     * Returns the dead-letter topic of a lane topic.
+     *
+     * @param laneTopic the lane topic
+     * @return the dead-letter topic name
+     */
+    public static String deadLetterTopic(String laneTopic) {
+        return laneTopic + DLT_SUFFIX;
+    }
+
+    /**
+     * Returns the retry and dead-letter topics of a lane topic.
+     *
+     * @param laneTopic the lane topic
+     * @return the topic names, retry tiers first
+     */
+    public static List<String> topics(String laneTopic) {
+        List<String> topics = new ArrayList<>(TIERS + 1);
+        for (int tier = 0; tier < TIERS; tier++) {
+            topics.add(retryTopic(laneTopic, tier));
+        }
+        topics.add(deadLetterTopic(laneTopic));
+        return topics;
+    }
+
+    /**
+     * Returns the retry topics of a tier for every notification lane, or only for the base topic when priority
+     * lanes are disabled; used by the tier listeners.
+     *
+     * @param tier the tier, starting at 0
+     * @return the retry topic names
+     */
+    public static String[] tierTopics(int tier) {
+        String[] laneTopics = GlobalConstant.isPriorityLanesEnabled()
+                ? PriorityLane.topics(GlobalConstant.TOPIC_NAME)
+                : new String[]{GlobalConstant.TOPIC_NAME};
+        return Arrays.stream(laneTopics)
+                .map(laneTopic -> retryTopic(laneTopic, tier))
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Returns how long a retried record still has to wait before it is due.
+     *
+     * @param record the record
+     * @return the remaining delay in milliseconds, 0 if the record is due
+     */
+    public static long remainingDelay(ConsumerRecord<?, ?> record) {
+        return Math.max(0L, readLong(record.headers(), DUE_AT_HEADER) - System.currentTimeMillis());
+    }
+
+    /**
+     * Chooses where a failed record is republished: the next retry tier of its lane, or the dead-letter topic
+     * once the tiers are used up or if the record cannot be deserialized. The partition is kept.
+     *
+     * @param record    the failed record
+     * @param exception the failure
+     * @return the destination
+     */
+    public static TopicPartition destination(ConsumerRecord<?, ?> record, Exception exception) {
+        String laneTopic = laneTopic(record.topic());
+        int attempt = (int) readLong(record.headers(), ATTEMPT_HEADER);
+        String topic = attempt >= TIERS || isPoisonPill(record, exception)
+                ? deadLetterTopic(laneTopic)
+                : retryTopic(laneTopic, attempt);
+        return new TopicPartition(topic, record.partition());
+    }
+
+    /**
+     * Returns the headers added to a republished record: the next attempt and, for a retry tier, when it is
+     * due. The delay is counted from now rather than from the record timestamp, which the republished record
+     * keeps.
+     *
+     * @param record    the failed record
+     * @param exception the failure
+     * @return the extra headers
+     */
+    public static Headers retryHeaders(ConsumerRecord<?, ?> record, Exception exception) {
+        int attempt = (int) readLong(record.headers(), ATTEMPT_HEADER);
+        Headers headers = new RecordHeaders();
+        headers.add(ATTEMPT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(attempt + 1L).array());
+        if (attempt < TIERS) {
+            long dueAt = System.currentTimeMillis() + delayMs(attempt);
+            headers.add(DUE_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(dueAt).array());
+        }
+        return headers;
+    }
+
+    /**
+     * Returns the lane topic a record belongs to, stripping any retry or dead-letter suffix.
+     */
+    static String laneTopic(String topic) {
+        int retry = topic.lastIndexOf(RETRY_SUFFIX);
+        if (retry > 0) {
+            return topic.substring(0, retry);
+        }
+        return topic.endsWith(DLT_SUFFIX) ? topic.substring(0, topic.length() - DLT_SUFFIX.length()) : topic;
+    }
+
+    private static boolean isPoisonPill(ConsumerRecord<?, ?> record, Exception exception) {
+        if (record.value() == null
+                && record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null) {
+            return true;
+        }
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeserializationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long readLong(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null && header.value().length == Long.BYTES ? ByteBuffer.wrap(header.value()).getLong() : 0L;
+    }
+}
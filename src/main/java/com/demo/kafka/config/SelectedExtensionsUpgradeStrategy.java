@@ -0,0 +1,106 @@
+package com.demo.kafka.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.Decoder;
+import jakarta.websocket.Encoder;
+import jakarta.websocket.Extension;
+import jakarta.websocket.HandshakeResponse;
+import jakarta.websocket.server.HandshakeRequest;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upgrade strategy that makes the container use the extensions selected by the handshake handler.
+ * <p>
+ * Tomcat negotiates extensions again on its own, against every extension it has installed, so without this an
+ * extension filtered out by {@code DefaultHandshakeHandler#filterRequestedExtensions} would still be accepted.
+ */
+public class SelectedExtensionsUpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+
+    @Override
+    protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                          ServerEndpointConfig endpointConfig, Map<String, String> pathParams) throws Exception {
+        super.upgradeHttpToWebSocket(request, response, new SelectedExtensionsConfig(endpointConfig), pathParams);
+    }
+
+    private static final class SelectedExtensionsConfig extends ServerEndpointConfig.Configurator
+            implements ServerEndpointConfig {
+
+        private final ServerEndpointConfig config;
+        private final ServerEndpointConfig.Configurator configurator;
+
+        private SelectedExtensionsConfig(ServerEndpointConfig config) {
+            this.config = config;
+            this.configurator = config.getConfigurator();
+        }
+
+        @Override
+        public List<Extension> getNegotiatedExtensions(List<Extension> installed, List<Extension> requested) {
+            return config.getExtensions();
+        }
+
+        @Override
+        public String getNegotiatedSubprotocol(List<String> supported, List<String> requested) {
+            return configurator.getNegotiatedSubprotocol(supported, requested);
+        }
+
+        @Override
+        public boolean checkOrigin(String originHeaderValue) {
+            return configurator.checkOrigin(originHeaderValue);
+        }
+
+        @Override
+        public void modifyHandshake(ServerEndpointConfig sec, HandshakeRequest request, HandshakeResponse response) {
+            configurator.modifyHandshake(sec, request, response);
+        }
+
+        @Override
+        public <T> T getEndpointInstance(Class<T> endpointClass) throws InstantiationException {
+            return configurator.getEndpointInstance(endpointClass);
+        }
+
+        @Override
+        public Class<?> getEndpointClass() {
+            return config.getEndpointClass();
+        }
+
+        @Override
+        public String getPath() {
+            return config.getPath();
+        }
+
+        @Override
+        public List<String> getSubprotocols() {
+            return config.getSubprotocols();
+        }
+
+        @Override
+        public List<Extension> getExtensions() {
+            return config.getExtensions();
+        }
+
+        @Override
+        public Configurator getConfigurator() {
+            return this;
+        }
+
+        @Override
+        public List<Class<? extends Encoder>> getEncoders() {
+            return config.getEncoders();
+        }
+
+        @Override
+        public List<Class<? extends Decoder>> getDecoders() {
+            return config.getDecoders();
+        }
+
+        @Override
+        public Map<String, Object> getUserProperties() {
+            return config.getUserProperties();
+        }
+    }
+}
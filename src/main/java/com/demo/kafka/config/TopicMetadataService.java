@@ -0,0 +1,233 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.utils.GlobalConstant;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Shared {@link AdminClient} and cache of topic metadata (existence, partition count and configs).
+ * <p>
+ * Lookups are served from the cache; entries older than {@link GlobalConstant#getTopicMetadataTtlMs()} are
+ * refreshed in the background while the stale value is still returned, and only a topic that has never been
+ * looked up waits for the broker. Entries are invalidated when topics are created or deleted through
+ * {@link KafkaEventService}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TopicMetadataService {
+
+    private final KafkaAdmin kafkaAdmin;
+    private final Map<String, TopicMetadata> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<TopicMetadata>> loading = new ConcurrentHashMap<>();
+    private volatile AdminClient adminClient;
+
+    /**
+     * Metadata of a single topic.
+     *
+     * @param name       the topic name
+     * @param exists     whether the topic exists
+     * @param partitions the partition count, 0 if the topic does not exist
+     * @param configs    the non-default topic configs
+     * @param fetchedAt  epoch milliseconds at which the metadata was fetched
+     */
+    public record TopicMetadata(String name, boolean exists, int partitions, Map<String, String> configs,
+                                long fetchedAt) {
+
+        static TopicMetadata missing(String name) {
+            return new TopicMetadata(name, false, 0, Map.of(), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Returns the long-lived admin client, creating it on first use.
+     *
+     * @return the shared admin client
+     */
+    public AdminClient adminClient() {
+        AdminClient client = adminClient;
+        if (client == null) {
+            synchronized (this) {
+                client = adminClient;
+                if (client == null) {
+                    client = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+                    adminClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Returns the cached metadata of a topic without contacting the broker; a stale entry triggers a
+     * background refresh.
+     *
+     * @param topic the topic name
+     * @return the cached metadata, empty if the topic has not been loaded yet
+     */
+    public Optional<TopicMetadata> getCached(String topic) {
+        TopicMetadata metadata = cache.get(topic);
+        if (metadata != null && isStale(metadata)) {
+            refresh(topic);
+        }
+        return Optional.ofNullable(metadata);
+    }
+
+    /**
+     * Returns the metadata of a topic, waiting for the broker only if the topic is not cached yet.
+     *
+     * @param topic the topic name
+     * @return the metadata, or empty if Kafka is disabled or the broker could not be reached
+     */
+    public Optional<TopicMetadata> get(String topic) {
+        Optional<TopicMetadata> cached = getCached(topic);
+        if (cached.isPresent() || !GlobalConstant.isKafkaEnabled()) {
+            return cached;
+        }
+        try {
+            return Optional.of(refresh(topic).get(GlobalConstant.getAdminTimeoutMs(), TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Error describing topic {}: {}", topic, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns whether a topic exists.
+     *
+     * @param topic the topic name
+     * @return true if the topic is known to exist
+     */
+    public boolean exists(String topic) {
+        return get(topic).map(TopicMetadata::exists).orElse(false);
+    }
+
+    /**
+     * Returns the partition count of a topic.
+     *
+     * @param topic the topic name
+     * @return the partition count, or empty if the topic does not exist or cannot be described
+     */
+    public Optional<Integer> partitions(String topic) {
+        return get(topic).filter(TopicMetadata::exists).map(TopicMetadata::partitions);
+    }
+
+    /**
+     * Drops the cached metadata of the given topics, e.g. after they were created or deleted.
+     *
+     * @param topics the topic names
+     */
+    public void invalidate(Collection<String> topics) {
+        topics.forEach(cache::remove);
+    }
+
+    /**
+     * Refreshes the metadata of a topic in the background; concurrent refreshes of the same topic share one
+     * broker request.
+     *
+     * @param topic the topic name
+     * @return a future completed with the fresh metadata
+     */
+    public CompletableFuture<TopicMetadata> refresh(String topic) {
+        CompletableFuture<TopicMetadata> pending = new CompletableFuture<>();
+        CompletableFuture<TopicMetadata> existing = loading.putIfAbsent(topic, pending);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<TopicMetadata> load;
+        try {
+            load = load(topic);
+        } catch (RuntimeException e) {
+            // e.g. the admin client could not be created; let the next call try again
+            loading.remove(topic, pending);
+            pending.completeExceptionally(e);
+            return pending;
+        }
+        load.whenComplete((metadata, e) -> {
+            if (metadata != null) {
+                cache.put(topic, metadata);
+            }
+            loading.remove(topic, pending);
+            if (e != null) {
+                pending.completeExceptionally(e);
+            } else {
+                pending.complete(metadata);
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * Refreshes every cached entry that has gone stale.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void refreshStale() {
+        if (!GlobalConstant.isKafkaEnabled()) {
+            return;
+        }
+        cache.values().stream().filter(this::isStale).map(TopicMetadata::name).forEach(this::refresh);
+    }
+
+    @PreDestroy
+    public void close() {
+        AdminClient client = adminClient;
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private CompletableFuture<TopicMetadata> load(String topic) {
+        ConfigResource resource = new ConfigResource(ConfigResource.Type.TOPIC, topic);
+        AdminClient client = adminClient();
+        KafkaFuture<TopicDescription> description = client.describeTopics(List.of(topic)).topicNameValues().get(topic);
+        KafkaFuture<Config> config = client.describeConfigs(List.of(resource)).values().get(resource);
+        return description.toCompletionStage().toCompletableFuture()
+                .thenCombine(config.toCompletionStage().toCompletableFuture()
+                                .exceptionally(e -> new Config(List.of())),
+                        (desc, cfg) -> new TopicMetadata(topic, true, desc.partitions().size(), explicitConfigs(cfg),
+                                System.currentTimeMillis()))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    if (cause instanceof UnknownTopicOrPartitionException) {
+                        return TopicMetadata.missing(topic);
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    private static Map<String, String> explicitConfigs(Config config) {
+        return config.entries().stream()
+                .filter(entry -> !entry.isDefault() && entry.value() != null)
+                .collect(Collectors.toUnmodifiableMap(ConfigEntry::name, ConfigEntry::value));
+    }
+
+    private boolean isStale(TopicMetadata metadata) {
+        return System.currentTimeMillis() - metadata.fetchedAt() > GlobalConstant.getTopicMetadataTtlMs();
+    }
+}
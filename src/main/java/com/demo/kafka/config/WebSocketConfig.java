@@ -1,13 +1,22 @@
 package com.demo.kafka.config;
 
+import com.demo.kafka.utils.GlobalConstant;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.config.annotation.*;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
     private final KafkaWebSocketHandler kafkaWebSocketHandler;
 
     @Autowired
@@ -18,6 +27,31 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(kafkaWebSocketHandler, "/ws/kafka")
+                .setHandshakeHandler(handshakeHandler())
                 .setAllowedOrigins("*");
     }
-}
\ No newline at end of file
+
+    /**
+     * Accepts permessage-deflate (RFC 7692) from clients that offer it while compression is enabled, and no other
+     * extension. Unless the client asks for {@code no_context_takeover}, the compression context is kept across
+     * the messages of a connection, so the field names and values repeated by every notification compress to
+     * back-references. Each compressed connection holds its own deflater, a few hundred KB of native memory.
+     */
+    @Bean
+    public DefaultHandshakeHandler handshakeHandler() {
+        return new DefaultHandshakeHandler(new SelectedExtensionsUpgradeStrategy()) {
+            @Override
+            protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                    List<WebSocketExtension> requested, List<WebSocketExtension> supported) {
+                if (!GlobalConstant.isWebSocketCompressionEnabled()) {
+                    return List.of();
+                }
+                // Tomcat implements permessage-deflate itself but does not list it as supported; it picks the first
+                // of the client's offers whose parameters it accepts
+                return requested.stream()
+                        .filter(extension -> PERMESSAGE_DEFLATE.equals(extension.getName()))
+                        .toList();
+            }
+        };
+    }
+}
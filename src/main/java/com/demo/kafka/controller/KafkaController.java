@@ -1,24 +1,62 @@
 package com.demo.kafka.controller;
 
+import com.demo.kafka.config.ClusterMembership;
+import com.demo.kafka.config.TopicMetadataService;
+import com.demo.kafka.outbox.NotificationOutbox;
 import com.demo.kafka.payload.ApiResponse;
 import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.service.HotKeyDetector;
 import com.demo.kafka.service.KafkaService;
+import com.demo.kafka.service.MessageDeduplicator;
+import com.demo.kafka.service.NotificationDigester;
+import com.demo.kafka.utils.GlobalConstant;
+import com.demo.kafka.utils.MessageExpiry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/kafka")
 @RequiredArgsConstructor
 public class KafkaController {
     private final KafkaService kafkaService;
+    private final MessageDeduplicator deduplicator;
+    private final NotificationDigester digester;
+    private final TopicMetadataService topicMetadata;
+    private final HotKeyDetector hotKeyDetector;
+    private final NotificationOutbox outbox;
+    private final ClusterMembership cluster;
 
     @PostMapping("/send")
-    public ApiResponse sendMessage(@RequestBody KafkaMessage<String> message) {
+    public CompletableFuture<ApiResponse> sendMessage(@RequestBody KafkaMessage<String> message) {
         return kafkaService.sendMessage(message);
     }
 
+    @PostMapping("/send/batch")
+    public ApiResponse sendBatch(@RequestBody List<KafkaMessage<String>> messages) {
+        return kafkaService.sendBatch(messages);
+    }
+
+    @PostMapping(value = "/send/stream", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ApiResponse sendStream(InputStream body) throws IOException {
+        return kafkaService.sendStream(body);
+    }
+
     @GetMapping("/health")
     public ApiResponse healthCheck() {
-        return ApiResponse.success("Kafka service is running", null);
+        return ApiResponse.success("Kafka service is running",
+                Map.of("expiredMessagesDropped", MessageExpiry.getDropped(),
+                        "dedup", deduplicator.getStats(),
+                        "digest", digester.getStats(),
+                        "topic", topicMetadata.getCached(GlobalConstant.TOPIC_NAME),
+                        "hotKeys", hotKeyDetector.getHotKeys(),
+                        "outboxBacklog", outbox.size(),
+                        "cluster", cluster.getNodes()));
     }
 }
@@ -0,0 +1,37 @@
+package com.demo.kafka.exception;
+
+import com.demo.kafka.payload.ApiResponse;
+import com.demo.kafka.utils.GlobalConstant;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Collections;
+
+/**
+ * Maps exceptions thrown by the REST controllers to {@link ApiResponse} bodies.
+ */
+@RestControllerAdvice
+public class KafkaExceptionHandler {
+
+	/**
+	 * Sheds load when too many requests or sends are in flight: 503 with a Retry-After hint.
+	 *
+	 * @param exception the rejection
+	 * @return the 503 response
+	 */
+	@ExceptionHandler(PublishRejectedException.class)
+	public ResponseEntity<ApiResponse> handlePublishRejected(PublishRejectedException exception) {
+		ApiResponse response = ApiResponse.builder()
+				.success(false)
+				.message("Service overloaded, retry later")
+				.statusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+				.errors(Collections.singletonList(exception.getMessage()))
+				.build();
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(GlobalConstant.getRetryAfterSeconds()))
+				.body(response);
+	}
+}
@@ -1,14 +1,25 @@
 package com.demo.kafka.exception;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.listener.CommonErrorHandler;
-import org.springframework.stereotype.Component;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
-@Component
-public class KafkaMessageErrorHandler implements CommonErrorHandler {
-	@Override
-	@Autowired
-	public boolean seeksAfterHandling() {
-		return true;
+/**
+ * Container error handler that never retries a failed record in place, where it would block its partition,
+ * but hands it to the recoverer right away, which republishes it to a retry tier or the dead-letter topic
+ * (see {@link com.demo.kafka.config.RetryTopics}). For batch listeners failing with a
+ * {@link org.springframework.kafka.listener.BatchListenerFailedException}, the records before the failed one
+ * are committed and the ones after it are redelivered.
+ */
+public class KafkaMessageErrorHandler extends DefaultErrorHandler {
+
+	/**
+	 * Creates the error handler.
+	 *
+	 * @param recoverer publishes failed records to their next destination
+	 */
+	public KafkaMessageErrorHandler(ConsumerRecordRecoverer recoverer) {
+		super(recoverer, new FixedBackOff(0L, 0L));
+		setCommitRecovered(true);
 	}
-}
\ No newline at end of file
+}
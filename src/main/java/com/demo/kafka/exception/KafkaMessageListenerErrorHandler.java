@@ -1,5 +1,6 @@
 package com.demo.kafka.exception;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.listener.KafkaListenerErrorHandler;
 import org.springframework.kafka.listener.ListenerExecutionFailedException;
 import org.springframework.messaging.Message;
@@ -8,21 +9,22 @@ import org.springframework.stereotype.Component;
 /**
  * A custom error handler for Kafka listener errors.
  */
+@Slf4j
 @Component
 public class KafkaMessageListenerErrorHandler implements KafkaListenerErrorHandler {
 
 	/**
-	 * Handles an error that occurs during message consumption in a Kafka listener.
+	 * Handles an error that occurs during message consumption in a Kafka listener. The error is logged and
+	 * rethrown, so that the container's {@link KafkaMessageErrorHandler} routes the record to a retry tier
+	 * instead of it being acknowledged as if it had been processed.
 	 *
 	 * @param message   the message that caused the error
 	 * @param exception the exception that was thrown
-	 * @return null
+	 * @return never returns normally
 	 */
 	@Override
 	public Object handleError(Message<?> message, ListenerExecutionFailedException exception) {
-		// Log the error message
-		System.err.println("Error consuming message: " + message.getPayload());
-		exception.printStackTrace();
-		return null;
+		log.error("Error consuming message {}: {}", message.getHeaders().getId(), exception.getMessage());
+		throw exception;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package com.demo.kafka.exception;
+
+/**
+ * Thrown when a message is published after its expiration time.
+ */
+public class MessageExpiredException extends RuntimeException {
+
+	public MessageExpiredException(String message) {
+		super(message);
+	}
+}
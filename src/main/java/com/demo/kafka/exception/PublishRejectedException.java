@@ -0,0 +1,12 @@
+package com.demo.kafka.exception;
+
+/**
+ * Thrown when a message is not handed to the producer at all, e.g. because Kafka is disabled or too many
+ * sends are already waiting for an acknowledgement.
+ */
+public class PublishRejectedException extends RuntimeException {
+
+	public PublishRejectedException(String message) {
+		super(message);
+	}
+}
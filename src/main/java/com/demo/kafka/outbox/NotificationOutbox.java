@@ -0,0 +1,127 @@
+package com.demo.kafka.outbox;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.utils.GlobalConstant;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Local, durable queue of messages waiting to be published, backed by an {@link OutboxLog}.
+ * <p>
+ * Messages are stored as JSON so that the log stays readable by any version of the serializer. The outbox is
+ * drained to Kafka by {@link OutboxDrainer}.
+ */
+@Slf4j
+@Component
+public class NotificationOutbox {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectReader messageReader = objectMapper.readerFor(new TypeReference<KafkaMessage<Object>>() {
+    });
+    private final OutboxLog outboxLog;
+
+    public NotificationOutbox() throws IOException {
+        this.outboxLog = GlobalConstant.isOutboxEnabled()
+                ? new OutboxLog(Path.of(GlobalConstant.getOutboxDirectory()), GlobalConstant.getOutboxSegmentBytes())
+                : null;
+    }
+
+    /**
+     * Returns whether messages can be queued in the outbox.
+     *
+     * @return true if the outbox is enabled
+     */
+    public boolean isEnabled() {
+        return outboxLog != null;
+    }
+
+    /**
+     * Queues a message for publishing.
+     *
+     * @param topic   the topic to publish to
+     * @param key     the record key, may be null
+     * @param message the message
+     * @return false if the outbox is disabled or the message could not be written
+     */
+    public boolean offer(String topic, String key, KafkaMessage<?> message) {
+        if (outboxLog == null) {
+            return false;
+        }
+        try {
+            outboxLog.append(topic, key, objectMapper.writeValueAsBytes(message));
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Could not queue message {} in the outbox: {}", message.getMessageId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads the oldest queued records without removing them.
+     *
+     * @param max the maximum number of records
+     * @return the records, oldest first
+     */
+    public List<OutboxLog.Entry> poll(int max) {
+        return outboxLog == null ? List.of() : outboxLog.poll(max);
+    }
+
+    /**
+     * Removes records that were published.
+     *
+     * @param entries the published records, in the order returned by {@link #poll}
+     */
+    public void commit(List<OutboxLog.Entry> entries) {
+        if (outboxLog != null) {
+            outboxLog.commit(entries);
+        }
+    }
+
+    /**
+     * Decodes the message of a queued record.
+     *
+     * @param entry the record
+     * @return the message
+     * @throws IOException if the record does not hold a valid message
+     */
+    public KafkaMessage<?> decode(OutboxLog.Entry entry) throws IOException {
+        return messageReader.readValue(entry.value());
+    }
+
+    /**
+     * Returns the number of queued messages.
+     *
+     * @return the backlog size
+     */
+    public long size() {
+        return outboxLog == null ? 0 : outboxLog.size();
+    }
+
+    /**
+     * Forces queued messages to the storage device.
+     */
+    public void flush() {
+        if (outboxLog != null) {
+            outboxLog.flush();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (outboxLog != null) {
+            outboxLog.close();
+        }
+    }
+}
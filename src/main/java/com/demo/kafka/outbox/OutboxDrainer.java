@@ -0,0 +1,80 @@
+package com.demo.kafka.outbox;
+
+import com.demo.kafka.config.KafkaEventService;
+import com.demo.kafka.exception.MessageExpiredException;
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.utils.GlobalConstant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forwards messages queued in the {@link NotificationOutbox} to Kafka in batches of
+ * {@link GlobalConstant#getOutboxDrainBatch()}.
+ * <p>
+ * A batch is removed from the outbox up to its first message that Kafka did not acknowledge; the rest is
+ * retried on the next run, so delivery is at-least-once and ordering is kept per outbox. Expired and
+ * unreadable messages are removed without being sent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxDrainer {
+
+    private final NotificationOutbox outbox;
+    private final KafkaEventService<?> kafkaEventService;
+
+    @Scheduled(fixedDelay = 500)
+    public void drain() {
+        if (!outbox.isEnabled() || !GlobalConstant.isKafkaEnabled()) {
+            return;
+        }
+        List<OutboxLog.Entry> entries;
+        while (!(entries = outbox.poll(GlobalConstant.getOutboxDrainBatch())).isEmpty()) {
+            int sent = send(entries);
+            outbox.commit(entries.subList(0, sent));
+            if (sent < entries.size()) {
+                break;
+            }
+        }
+        outbox.flush();
+    }
+
+    /**
+     * Publishes the records and returns how many of them, from the start, were acknowledged or dropped.
+     */
+    private int send(List<OutboxLog.Entry> entries) {
+        List<CompletableFuture<?>> results = new ArrayList<>(entries.size());
+        for (OutboxLog.Entry entry : entries) {
+            KafkaMessage<?> message;
+            try {
+                message = outbox.decode(entry);
+            } catch (IOException e) {
+                log.error("Dropping unreadable outbox record: {}", e.getMessage());
+                results.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            results.add(kafkaEventService.publishEventAsync(entry.topic(), entry.key(), message)
+                    .orTimeout(GlobalConstant.getSendTimeoutMs(), TimeUnit.MILLISECONDS));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).join();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof MessageExpiredException)) {
+                    log.warn("Outbox drain stopped after {} of {} messages: {}", i, results.size(), e.getMessage());
+                    return i;
+                }
+            }
+        }
+        return results.size();
+    }
+}
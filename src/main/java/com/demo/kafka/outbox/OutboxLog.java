@@ -0,0 +1,319 @@
+package com.demo.kafka.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of records waiting to be sent to Kafka, stored in memory-mapped segment files.
+ * <p>
+ * Each record is written as {@code [int length][int crc32c][body]}; a zero length marks the end of the written
+ * data, since segments are created zero-filled. The position of the first record not yet forwarded is kept in
+ * a small mapped {@value #CURSOR_FILE} file and only advances on {@link #commit}, so after a crash the
+ * uncommitted records are read again (at-least-once). On open, the last segment is scanned and anything after
+ * the last record with a valid checksum is zeroed. Segments behind the cursor are deleted, which keeps the log
+ * no larger than its backlog.
+ * <p>
+ * A log is owned by one process at a time: opening takes an exclusive lock on a {@value #LOCK_FILE} file in the
+ * directory, held until {@link #close}, and fails if another log holds it.
+ * <p>
+ * All methods are synchronized; appends are a copy into the mapped buffer and never wait for the disk.
+ */
+@Slf4j
+public class OutboxLog implements Closeable {
+
+    static final String CURSOR_FILE = "cursor";
+    static final String LOCK_FILE = "lock";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private final FileChannel lockChannel;
+    private final MappedByteBuffer cursor;
+
+    private long writeSegment;
+    private int writePosition;
+    private long readSegment;
+    private int readPosition;
+    private long pending;
+
+    /**
+     * A record read from the log.
+     *
+     * @param topic   the topic to send to
+     * @param key     the record key, may be null
+     * @param value   the record value
+     * @param segment the segment holding the record
+     * @param next    the position right after the record
+     */
+    public record Entry(String topic, String key, byte[] value, long segment, int next) {
+    }
+
+    /**
+     * Opens the log in the given directory, recovering any records left by a previous run.
+     *
+     * @param directory    the directory holding the segment files
+     * @param segmentBytes the size of each segment file
+     * @throws IOException if the directory or its files cannot be accessed, or another log holds the directory
+     */
+    public OutboxLog(Path directory, int segmentBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.lockChannel = lock(directory.resolve(LOCK_FILE));
+        this.cursor = map(directory.resolve(CURSOR_FILE), Long.BYTES + Integer.BYTES);
+        this.readSegment = cursor.getLong(0);
+        this.readPosition = cursor.getInt(Long.BYTES);
+        recover();
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param topic the topic to send to
+     * @param key   the record key, may be null
+     * @param value the record value
+     * @throws IllegalArgumentException if the record does not fit in a segment
+     * @throws IOException              if a new segment cannot be created
+     */
+    public synchronized void append(String topic, String key, byte[] value) throws IOException {
+        byte[] body = encode(topic, key, value);
+        int length = RECORD_HEADER + body.length;
+        if (length + Integer.BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + length + " bytes exceeds the outbox segment size");
+        }
+        if (writePosition + length + Integer.BYTES > segmentBytes) {
+            writeSegment++;
+            writePosition = 0;
+            segments.put(writeSegment, map(segmentPath(writeSegment), segmentBytes));
+        }
+        MappedByteBuffer segment = segments.get(writeSegment);
+        segment.put(writePosition + RECORD_HEADER, body);
+        segment.putInt(writePosition + Integer.BYTES, checksum(body));
+        segment.putInt(writePosition, body.length);
+        writePosition += length;
+        pending++;
+    }
+
+    /**
+     * Reads up to {@code max} records after the cursor without advancing it.
+     *
+     * @param max the maximum number of records to read
+     * @return the records, oldest first
+     */
+    public synchronized List<Entry> poll(int max) {
+        List<Entry> entries = new ArrayList<>(Math.min(max, (int) Math.min(pending, Integer.MAX_VALUE)));
+        long segmentId = readSegment;
+        int position = readPosition;
+        while (entries.size() < max) {
+            MappedByteBuffer segment = segments.get(segmentId);
+            byte[] body = segment == null ? null : readBody(segment, position);
+            if (body == null) {
+                Long next = segments.higherKey(segmentId);
+                if (next == null) {
+                    break;
+                }
+                segmentId = next;
+                position = 0;
+                continue;
+            }
+            position += RECORD_HEADER + body.length;
+            entries.add(decode(body, segmentId, position));
+        }
+        return entries;
+    }
+
+    /**
+     * Advances the cursor past the given records and deletes the segments that were fully forwarded.
+     *
+     * @param entries records returned by {@link #poll}, in order
+     */
+    public synchronized void commit(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Entry last = entries.get(entries.size() - 1);
+        readSegment = last.segment();
+        readPosition = last.next();
+        cursor.putLong(0, readSegment);
+        cursor.putInt(Long.BYTES, readPosition);
+        pending = Math.max(0, pending - entries.size());
+        compact();
+    }
+
+    /**
+     * Returns the number of records not yet committed.
+     *
+     * @return the backlog size
+     */
+    public synchronized long size() {
+        return pending;
+    }
+
+    /**
+     * Forces written records and the cursor to the storage device.
+     */
+    public synchronized void flush() {
+        segments.values().forEach(MappedByteBuffer::force);
+        cursor.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            // Releases the lock
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Could not release outbox lock in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long id = Long.parseLong(name, SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length(), 10);
+                    if (id < readSegment) {
+                        Files.delete(file);
+                    } else {
+                        segments.put(id, map(file, segmentBytes));
+                    }
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(readSegment, map(segmentPath(readSegment), segmentBytes));
+        }
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.entrySet()) {
+            int position = segment.getKey() == readSegment ? readPosition : 0;
+            byte[] body;
+            while ((body = readBody(segment.getValue(), position)) != null) {
+                position += RECORD_HEADER + body.length;
+                pending++;
+            }
+            writeSegment = segment.getKey();
+            writePosition = position;
+        }
+        MappedByteBuffer last = segments.get(writeSegment);
+        for (int i = writePosition; i < segmentBytes; i++) {
+            if (last.get(i) != 0) {
+                log.warn("Discarding corrupt outbox data after {}:{}", writeSegment, writePosition);
+                last.put(writePosition, new byte[segmentBytes - writePosition]);
+                break;
+            }
+        }
+        if (pending > 0) {
+            log.info("Recovered {} outbox records", pending);
+        }
+    }
+
+    private void compact() {
+        while (segments.firstKey() < readSegment) {
+            long id = segments.pollFirstEntry().getKey();
+            try {
+                Files.deleteIfExists(segmentPath(id));
+            } catch (IOException e) {
+                log.warn("Could not delete outbox segment {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the body of the record at the given position, or null at the end of the data or at a record
+     * that fails its checksum.
+     */
+    private byte[] readBody(MappedByteBuffer segment, int position) {
+        if (position + RECORD_HEADER > segmentBytes) {
+            return null;
+        }
+        int length = segment.getInt(position);
+        if (length <= 0 || position + RECORD_HEADER + length > segmentBytes) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        segment.get(position + RECORD_HEADER, body);
+        return checksum(body) == segment.getInt(position + Integer.BYTES) ? body : null;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private static FileChannel lock(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Outbox directory " + file.getParent() + " is in use by another process");
+        }
+        return channel;
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static int checksum(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Body layout: {@code [short topicLength][topic][int keyLength or -1][key][value]}.
+     */
+    private static byte[] encode(String topic, String key, byte[] value) {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        byte[] keyBytes = key == null ? new byte[0] : key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(
+                Short.BYTES + topicBytes.length + Integer.BYTES + keyBytes.length + value.length);
+        body.putShort((short) topicBytes.length).put(topicBytes);
+        body.putInt(key == null ? -1 : keyBytes.length).put(keyBytes);
+        body.put(value);
+        return body.array();
+    }
+
+    private static Entry decode(byte[] bytes, long segment, int next) {
+        ByteBuffer body = ByteBuffer.wrap(bytes);
+        byte[] topic = new byte[body.getShort()];
+        body.get(topic);
+        int keyLength = body.getInt();
+        String key = null;
+        if (keyLength >= 0) {
+            byte[] keyBytes = new byte[keyLength];
+            body.get(keyBytes);
+            key = new String(keyBytes, StandardCharsets.UTF_8);
+        }
+        byte[] value = new byte[body.remaining()];
+        body.get(value);
+        return new Entry(new String(topic, StandardCharsets.UTF_8), key, value, segment, next);
+    }
+}
@@ -0,0 +1,38 @@
+package com.demo.kafka.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Per-item outcome of a bulk or streamed publish request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchPublishResult {
+
+    /**
+     * Number of messages acknowledged by the broker or queued in the outbox.
+     */
+    private int accepted;
+
+    /**
+     * Number of messages that could not be parsed or were not acknowledged.
+     */
+    private int failed;
+
+    /**
+     * One receipt per item, in request order.
+     */
+    private List<PublishReceipt> results;
+
+    public static BatchPublishResult of(List<PublishReceipt> results) {
+        int failed = (int) results.stream().filter(receipt -> receipt.getError() != null).count();
+        return new BatchPublishResult(results.size() - failed, failed, results);
+    }
+}
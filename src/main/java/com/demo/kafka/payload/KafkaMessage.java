@@ -1,6 +1,7 @@
 package com.demo.kafka.payload;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
 
@@ -86,4 +87,12 @@ public class KafkaMessage<T> {
      * The actual business payload being transmitted.
      */
     private T payload;
+
+    /**
+     * The JSON record bytes this message was deserialized from, if any; never serialized and not part of equality.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient byte[] rawValue;
 }
@@ -0,0 +1,75 @@
+package com.demo.kafka.payload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A {@link KafkaMessage} whose payload is still a slice of the record bytes it was read from.
+ * <p>
+ * The envelope fields are populated eagerly by {@link MessageDeserializer}; the payload is only bound by
+ * Jackson the first time {@link #getPayload()} is called, so consumers that route or forward a message
+ * without looking at its payload never pay for it.
+ *
+ * @param <T> the type of the message payload
+ */
+public class LazyKafkaMessage<T> extends KafkaMessage<T> {
+
+    private final transient ObjectMapper objectMapper;
+    private int payloadOffset;
+    private int payloadLength;
+    private volatile boolean payloadBound = true;
+
+    LazyKafkaMessage(ObjectMapper objectMapper, byte[] rawValue) {
+        this.objectMapper = objectMapper;
+        setRawValue(rawValue);
+    }
+
+    /**
+     * Marks the payload as the given slice of the raw record bytes, to be bound on first access.
+     *
+     * @param offset the offset of the payload value in the raw bytes
+     * @param length the length of the payload value in bytes
+     */
+    void setPayloadSlice(int offset, int length) {
+        this.payloadOffset = offset;
+        this.payloadLength = length;
+        this.payloadBound = false;
+    }
+
+    /**
+     * Returns whether the payload has been bound from the raw record bytes yet.
+     *
+     * @return true if the payload is available without parsing
+     */
+    public boolean isPayloadBound() {
+        return payloadBound;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getPayload() {
+        if (!payloadBound) {
+            synchronized (this) {
+                if (!payloadBound) {
+                    try {
+                        super.setPayload((T) objectMapper.readValue(getRawValue(), payloadOffset, payloadLength, Object.class));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Error binding message payload", e);
+                    }
+                    payloadBound = true;
+                }
+            }
+        }
+        return super.getPayload();
+    }
+
+    @Override
+    public void setPayload(T payload) {
+        synchronized (this) {
+            super.setPayload(payload);
+            payloadBound = true;
+        }
+    }
+}
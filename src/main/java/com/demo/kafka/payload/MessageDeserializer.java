@@ -1,58 +1,180 @@
 package com.demo.kafka.payload;
 
+import com.demo.kafka.utils.MessageExpiry;
+import com.demo.kafka.utils.NotificationMetrics;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Deserializer;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A custom deserializer for Kafka messages that uses Jackson to deserialize JSON data into Message objects.
+ * Records written in a binary {@link MessageFormat} are detected from their leading bytes and decoded as well.
  *
  * @param <T> the type of the message payload
  */
 @Slf4j
 public class MessageDeserializer<T> implements Deserializer<KafkaMessage<T>> {
 
+    /**
+     * Consumer config key enabling lazy envelope mode: only the envelope fields are parsed, with the streaming
+     * parser, and the payload is bound on first access (see {@link LazyKafkaMessage}).
+     */
+    public static final String LAZY_ENVELOPE_CONFIG = "kafka.message.lazy-envelope";
+
     private final ObjectMapper objectMapper;
+    private final ObjectMapper smileObjectMapper;
+    private boolean lazyEnvelope;
 
     /**
-     * Constructs a new MessageDeserializer and registers the JavaTimeModule with the ObjectMapper.
+     * Constructs a new MessageDeserializer with JSON and Smile ObjectMappers, both including the JavaTimeModule.
      */
     public MessageDeserializer() {
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper = MessageFormat.JSON.newObjectMapper();
+        this.smileObjectMapper = MessageFormat.SMILE.newObjectMapper();
     }
 
     /**
-     * Configures the deserializer. No configuration is needed for this deserializer.
+     * Configures the deserializer, enabling lazy envelope mode when {@value #LAZY_ENVELOPE_CONFIG} is true.
      *
      * @param configs the configuration settings
      * @param isKey   whether the deserializer is for keys or values
      */
     @Override
     public void configure(Map<String, ?> configs, boolean isKey) {
-        // No configuration needed
+        Object lazy = configs.get(LAZY_ENVELOPE_CONFIG);
+        this.lazyEnvelope = lazy != null && Boolean.parseBoolean(lazy.toString());
     }
 
     /**
-     * Deserializes the given byte array into a Message object.
+     * Deserializes the given byte array into a Message object. The original bytes of JSON records are kept on
+     * the message so that they can be forwarded without encoding the message again.
      *
      * @param topic the topic associated with the data
      * @param data  the serialized bytes
      * @return the deserialized Message object
+     * @throws SerializationException if the data is not a valid message; the consumer wraps this deserializer
+     *                                in an {@code ErrorHandlingDeserializer}, which hands the failure to the
+     *                                container error handler
      */
     @Override
     public KafkaMessage<T> deserialize(String topic, byte[] data) {
         try {
-            return objectMapper.readValue(data, KafkaMessage.class);
+            if (MessageFormat.detect(data) == MessageFormat.SMILE) {
+                return smileObjectMapper.readValue(data, KafkaMessage.class);
+            }
+            if (lazyEnvelope) {
+                return readEnvelope(data);
+            }
+            KafkaMessage<T> message = objectMapper.readValue(data, KafkaMessage.class);
+            message.setRawValue(data);
+            return message;
         } catch (Exception e) {
-            log.error("The message type not supported, error on deserializing message", e);
+            throw new SerializationException("Error deserializing message from " + topic, e);
+        }
+    }
+
+    /**
+     * Deserializes a record, first checking its {@value MessageExpiry#EXPIRES_AT_HEADER} header: an expired
+     * record is not parsed at all and yields a message carrying only its expiration time, which the
+     * listener container's record filter then discards. The time taken by the other records is recorded in
+     * {@link NotificationMetrics#DESERIALIZE_DURATION}.
+     *
+     * @param topic   the topic associated with the data
+     * @param headers the record headers
+     * @param data    the serialized bytes
+     * @return the deserialized Message object
+     */
+    @Override
+    public KafkaMessage<T> deserialize(String topic, Headers headers, byte[] data) {
+        Header expiresAt = headers == null ? null : headers.lastHeader(MessageExpiry.EXPIRES_AT_HEADER);
+        if (expiresAt != null) {
+            long expiresAtMillis = MessageExpiry.decodeHeader(expiresAt.value());
+            if (MessageExpiry.isExpired(expiresAtMillis)) {
+                KafkaMessage<T> expired = new KafkaMessage<>();
+                expired.setExpirationTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault()));
+                return expired;
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            return deserialize(topic, data);
+        } finally {
+            NotificationMetrics.DESERIALIZE_DURATION.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Reads the envelope fields with the streaming parser and records where the payload value starts and
+     * ends instead of binding it.
+     */
+    private KafkaMessage<T> readEnvelope(byte[] data) throws IOException {
+        LazyKafkaMessage<T> message = new LazyKafkaMessage<>(objectMapper, data);
+        try (JsonParser parser = objectMapper.getFactory().createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "messageId" -> message.setMessageId(parser.getValueAsString());
+                    case "correlationId" -> message.setCorrelationId(parser.getValueAsString());
+                    case "type" -> message.setType(parser.getValueAsString());
+                    case "operation" -> message.setOperation(parser.getValueAsString());
+                    case "source" -> message.setSource(parser.getValueAsString());
+                    case "success" -> message.setSuccess(token == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean());
+                    case "version" -> message.setVersion(parser.getValueAsString());
+                    case "priority" -> message.setPriority(parser.getValueAsString());
+                    case "messageLog" -> message.setMessageLog(parser.getValueAsString());
+                    case "timestamp" -> message.setTimestamp(readDateTime(parser));
+                    case "expirationTime" -> message.setExpirationTime(readDateTime(parser));
+                    case "headers" -> message.setHeaders(readHeaders(parser));
+                    case "payload" -> {
+                        int start = (int) parser.currentTokenLocation().getByteOffset();
+                        parser.skipChildren();
+                        parser.finishToken();
+                        int end = (int) parser.currentLocation().getByteOffset();
+                        message.setPayloadSlice(start, end - start);
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return message;
+    }
+
+    private static LocalDateTime readDateTime(JsonParser parser) throws IOException {
+        String value = parser.getValueAsString();
+        return value == null ? null : LocalDateTime.parse(value);
+    }
+
+    private static Map<String, String> readHeaders(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Map<String, String> headers = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            headers.put(name, parser.getValueAsString());
+            parser.skipChildren();
         }
-        return new KafkaMessage<>();
+        return headers;
     }
 
     /**
@@ -0,0 +1,68 @@
+package com.demo.kafka.payload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Wire formats a {@link KafkaMessage} can be encoded with.
+ * <p>
+ * The format of a record is detected from its leading bytes, so producers using different formats can
+ * share a topic while it is being migrated.
+ */
+public enum MessageFormat {
+
+    /**
+     * Plain JSON, readable by any client.
+     */
+    JSON {
+        @Override
+        ObjectMapper newObjectMapper() {
+            return configure(new ObjectMapper());
+        }
+    },
+
+    /**
+     * Binary Smile encoding of the same document model; field names are written once per record and
+     * back-referenced afterwards.
+     */
+    SMILE {
+        @Override
+        ObjectMapper newObjectMapper() {
+            return configure(new ObjectMapper(new SmileFactory()));
+        }
+    };
+
+    /**
+     * Every Smile document starts with the header {@code ":)\n"}, which can never start a JSON document.
+     */
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+    /**
+     * Creates an ObjectMapper reading and writing this format, with the JavaTimeModule registered.
+     *
+     * @return a new ObjectMapper
+     */
+    abstract ObjectMapper newObjectMapper();
+
+    /**
+     * Detects the format of a serialized message from its leading bytes.
+     *
+     * @param data the serialized message
+     * @return the detected format, {@link #JSON} when no binary header is present
+     */
+    public static MessageFormat detect(byte[] data) {
+        if (data != null && data.length >= SMILE_HEADER.length
+                && data[0] == SMILE_HEADER[0] && data[1] == SMILE_HEADER[1] && data[2] == SMILE_HEADER[2]) {
+            return SMILE;
+        }
+        return JSON;
+    }
+
+    private static ObjectMapper configure(ObjectMapper objectMapper) {
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return objectMapper;
+    }
+}
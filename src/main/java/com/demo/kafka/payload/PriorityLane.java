@@ -0,0 +1,60 @@
+package com.demo.kafka.payload;
+
+import java.util.Arrays;
+
+/**
+ * Delivery lanes derived from {@link KafkaMessage#getPriority()}.
+ * <p>
+ * Each lane of a topic is a topic of its own ({@code <topic>.high}, {@code <topic>}, {@code <topic>.low}), so a
+ * flood of low priority messages never sits in front of high priority ones in a partition. Messages without a
+ * known priority use the {@link #MEDIUM} lane, which is the base topic itself.
+ */
+public enum PriorityLane {
+
+    HIGH(".high"),
+    MEDIUM(""),
+    LOW(".low");
+
+    private final String topicSuffix;
+
+    PriorityLane(String topicSuffix) {
+        this.topicSuffix = topicSuffix;
+    }
+
+    /**
+     * Returns the lane of a message priority.
+     *
+     * @param priority the message priority, e.g. HIGH, MEDIUM or LOW
+     * @return the matching lane, {@link #MEDIUM} when the priority is missing or unknown
+     */
+    public static PriorityLane of(String priority) {
+        if (priority != null) {
+            for (PriorityLane lane : values()) {
+                if (lane.name().equalsIgnoreCase(priority)) {
+                    return lane;
+                }
+            }
+        }
+        return MEDIUM;
+    }
+
+    /**
+     * Returns the topic carrying this lane of a base topic.
+     *
+     * @param topicName the base topic name
+     * @return the lane topic name
+     */
+    public String topic(String topicName) {
+        return topicName + topicSuffix;
+    }
+
+    /**
+     * Returns the topics of all lanes of a base topic, highest priority first.
+     *
+     * @param topicName the base topic name
+     * @return the lane topic names
+     */
+    public static String[] topics(String topicName) {
+        return Arrays.stream(values()).map(lane -> lane.topic(topicName)).toArray(String[]::new);
+    }
+}
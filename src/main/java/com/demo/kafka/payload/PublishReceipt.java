@@ -0,0 +1,83 @@
+package com.demo.kafka.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+/**
+ * Where the broker stored an acknowledged message, or why a message was not acknowledged.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PublishReceipt {
+
+    /**
+     * Position of the message in the request it was part of.
+     */
+    private Integer index;
+
+    /**
+     * ID of the acknowledged message.
+     */
+    private String messageId;
+
+    /**
+     * Topic the message was written to.
+     */
+    private String topic;
+
+    /**
+     * Partition the message was written to.
+     */
+    private Integer partition;
+
+    /**
+     * Offset of the message within its partition.
+     */
+    private Long offset;
+
+    /**
+     * Why the message was not acknowledged; null on success.
+     */
+    private String error;
+
+    /**
+     * True if the message was not acknowledged yet but queued in the local outbox for later delivery.
+     */
+    private Boolean queued;
+
+    public static PublishReceipt of(String messageId, RecordMetadata metadata) {
+        return of(null, messageId, metadata);
+    }
+
+    public static PublishReceipt of(Integer index, String messageId, RecordMetadata metadata) {
+        return PublishReceipt.builder()
+                .index(index)
+                .messageId(messageId)
+                .topic(metadata.topic())
+                .partition(metadata.partition())
+                .offset(metadata.offset())
+                .build();
+    }
+
+    public static PublishReceipt queued(Integer index, String messageId, String topic) {
+        return PublishReceipt.builder()
+                .index(index)
+                .messageId(messageId)
+                .topic(topic)
+                .queued(true)
+                .build();
+    }
+
+    public static PublishReceipt failed(Integer index, String messageId, String error) {
+        return PublishReceipt.builder()
+                .index(index)
+                .messageId(messageId)
+                .error(error)
+                .build();
+    }
+}
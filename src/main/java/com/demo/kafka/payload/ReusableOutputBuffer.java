@@ -0,0 +1,59 @@
+package com.demo.kafka.payload;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that is reset and reused across serializations instead of being reallocated.
+ * <p>
+ * The buffer keeps a moving average of recent message sizes; after a reset it shrinks back when one
+ * unusually large message left it far bigger than what recent messages needed.
+ */
+class ReusableOutputBuffer extends OutputStream {
+
+    private static final int MIN_CAPACITY = 1024;
+
+    private byte[] buffer = new byte[MIN_CAPACITY];
+    private int count;
+    private double averageSize = MIN_CAPACITY;
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    /**
+     * Returns a copy of the written bytes, sized exactly.
+     *
+     * @return the written bytes
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * Discards the written bytes, shrinking the buffer when it is much larger than recent messages.
+     */
+    void reset() {
+        averageSize = averageSize * 0.9 + count * 0.1;
+        int target = Math.max(MIN_CAPACITY, (int) (averageSize * 2));
+        if (buffer.length > target * 4) {
+            buffer = new byte[target];
+        }
+        count = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.demo.kafka.service;
+
+/**
+ * How {@link NotificationDigester} cuts a group's notifications into windows. Times are record timestamps in
+ * epoch milliseconds; a window covers {@code [start, end)}.
+ */
+public enum DigestWindow {
+
+    /**
+     * Fixed windows of the configured length, aligned to multiples of it, so every group closes at the same
+     * moments.
+     */
+    TUMBLING {
+        @Override
+        public long start(long timestamp, long length) {
+            return timestamp - Math.floorMod(timestamp, length);
+        }
+
+        @Override
+        public long extend(long start, long end, long timestamp, long length, long maxSpan) {
+            return end;
+        }
+    },
+
+    /**
+     * A window per burst: it closes once the group has been quiet for the configured gap, but never spans more
+     * than the maximum, so a steady stream still produces a digest now and then.
+     */
+    SESSION {
+        @Override
+        public long start(long timestamp, long length) {
+            return timestamp;
+        }
+
+        @Override
+        public long extend(long start, long end, long timestamp, long length, long maxSpan) {
+            return Math.min(Math.max(end, timestamp + length), start + maxSpan);
+        }
+    };
+
+    /**
+     * Returns the start of the window a group's first notification opens; it ends {@code length} later.
+     *
+     * @param timestamp the timestamp of the notification
+     * @param length    the window length or session gap
+     * @return the window start
+     */
+    public abstract long start(long timestamp, long length);
+
+    /**
+     * Returns the end of an open window after it absorbed another notification.
+     *
+     * @param start     the window start
+     * @param end       the current window end
+     * @param timestamp the timestamp of the notification
+     * @param length    the window length or session gap
+     * @param maxSpan   the longest a window may last
+     * @return the new window end
+     */
+    public abstract long extend(long start, long end, long timestamp, long length, long maxSpan);
+}
@@ -0,0 +1,168 @@
+package com.demo.kafka.service;
+
+import com.demo.kafka.payload.KafkaMessage;
+
+/**
+ * The open windows of {@link NotificationDigester}, keyed by the 64-bit fingerprint of their group.
+ * <p>
+ * Open addressing with linear probing over parallel primitive arrays, so an open window costs a few longs and
+ * a reference to the last notification it absorbed, and no per-window objects are allocated. Capacity is
+ * fixed; the store refuses new windows once it is three quarters full. Removal shifts the rest of the probe
+ * run back instead of leaving tombstones. Not thread-safe.
+ */
+final class DigestWindowStore {
+
+    static final long EMPTY = 0L;
+
+    private static final byte DIRTY = 1;
+    private static final byte PERSISTED = 2;
+
+    private final long[] keys;
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] counts;
+    private final byte[] flags;
+    private final Object[] latest;
+    private final int mask;
+    private final int maxSize;
+    private int size;
+
+    DigestWindowStore(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.keys = new long[capacity];
+        this.starts = new long[capacity];
+        this.ends = new long[capacity];
+        this.counts = new int[capacity];
+        this.flags = new byte[capacity];
+        this.latest = new Object[capacity];
+        this.mask = capacity - 1;
+        this.maxSize = capacity / 4 * 3;
+    }
+
+    /**
+     * Returns the slot of a group's window, or -1 if it has none.
+     */
+    int find(long key) {
+        for (int i = (int) key & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Opens a window for a group that has none, returning its slot, or -1 if the store is full.
+     */
+    int open(long key, long start, long end) {
+        if (size >= maxSize) {
+            return -1;
+        }
+        int i = (int) key & mask;
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        starts[i] = start;
+        ends[i] = end;
+        counts[i] = 0;
+        flags[i] = 0;
+        latest[i] = null;
+        size++;
+        return i;
+    }
+
+    /**
+     * Counts a notification absorbed by the window in a slot.
+     */
+    void absorb(int slot, KafkaMessage<String> message, long end) {
+        ends[slot] = end;
+        counts[slot]++;
+        latest[slot] = message;
+        flags[slot] |= DIRTY;
+    }
+
+    /**
+     * Replaces the state of the window in a slot with a checkpointed one.
+     */
+    void restore(int slot, long start, long end, int count, KafkaMessage<String> message) {
+        starts[slot] = start;
+        ends[slot] = end;
+        counts[slot] = count;
+        latest[slot] = message;
+        flags[slot] = PERSISTED;
+    }
+
+    /**
+     * Marks the window in a slot as checkpointed.
+     */
+    void markPersisted(int slot) {
+        flags[slot] = PERSISTED;
+    }
+
+    /**
+     * Closes the window in a slot; a window further along the probe run may move into it.
+     */
+    void remove(int slot) {
+        int hole = slot;
+        for (int i = (slot + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = (int) keys[i] & mask;
+            // Move the entry back unless its home lies cyclically within (hole, i]
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                move(i, hole);
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+        latest[hole] = null;
+        size--;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        starts[to] = starts[from];
+        ends[to] = ends[from];
+        counts[to] = counts[from];
+        flags[to] = flags[from];
+        latest[to] = latest[from];
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long key(int slot) {
+        return keys[slot];
+    }
+
+    long start(int slot) {
+        return starts[slot];
+    }
+
+    long end(int slot) {
+        return ends[slot];
+    }
+
+    int count(int slot) {
+        return counts[slot];
+    }
+
+    boolean dirty(int slot) {
+        return (flags[slot] & DIRTY) != 0;
+    }
+
+    boolean wasPersisted(int slot) {
+        return (flags[slot] & PERSISTED) != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    KafkaMessage<String> latest(int slot) {
+        return (KafkaMessage<String>) latest[slot];
+    }
+}
@@ -0,0 +1,108 @@
+package com.demo.kafka.service;
+
+import com.demo.kafka.utils.GlobalConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects record keys that take a disproportionate share of published messages and would overload a single
+ * partition.
+ * <p>
+ * One in {@link GlobalConstant#getHotKeySampleRate()} keys is sampled into a Space-Saving summary of
+ * {@link GlobalConstant#getHotKeyCapacity()} counters, so memory and lock time stay constant regardless of the
+ * number of distinct keys. At the end of every window the keys whose estimated share exceeds
+ * {@link GlobalConstant#getHotKeyShareThreshold()} are reported and the summary starts over.
+ */
+@Slf4j
+@Component
+public class HotKeyDetector {
+
+    private final int capacity;
+    private final int sampleRate;
+    private final double shareThreshold;
+    private final Map<String, long[]> counters = new HashMap<>();
+    private final LongAdder sampled = new LongAdder();
+    private volatile Map<String, Double> hotKeys = Map.of();
+
+    public HotKeyDetector() {
+        this(GlobalConstant.getHotKeyCapacity(), GlobalConstant.getHotKeySampleRate(),
+                GlobalConstant.getHotKeyShareThreshold());
+    }
+
+    HotKeyDetector(int capacity, int sampleRate, double shareThreshold) {
+        this.capacity = capacity;
+        this.sampleRate = sampleRate;
+        this.shareThreshold = shareThreshold;
+    }
+
+    /**
+     * Records a published key.
+     *
+     * @param key the record key, null keys are ignored
+     */
+    public void record(String key) {
+        if (key == null || (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0)) {
+            return;
+        }
+        sampled.increment();
+        synchronized (counters) {
+            long[] count = counters.get(key);
+            if (count != null) {
+                count[0]++;
+            } else if (counters.size() < capacity) {
+                counters.put(key, new long[]{1});
+            } else {
+                // Space-Saving: the new key takes over the smallest counter and inherits its count
+                String min = null;
+                long minCount = Long.MAX_VALUE;
+                for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+                    if (entry.getValue()[0] < minCount) {
+                        min = entry.getKey();
+                        minCount = entry.getValue()[0];
+                    }
+                }
+                long[] reused = counters.remove(min);
+                reused[0]++;
+                counters.put(key, reused);
+            }
+        }
+    }
+
+    /**
+     * Closes the current window, publishing and logging the keys above the share threshold.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evaluate() {
+        long total = sampled.sumThenReset();
+        Map<String, Double> hot = new LinkedHashMap<>();
+        synchronized (counters) {
+            if (total >= GlobalConstant.getHotKeyMinSamples()) {
+                counters.entrySet().stream()
+                        .filter(entry -> (double) entry.getValue()[0] / total > shareThreshold)
+                        .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                        .forEach(entry -> hot.put(entry.getKey(), (double) entry.getValue()[0] / total));
+            }
+            counters.clear();
+        }
+        if (!hot.isEmpty()) {
+            log.warn("Hot record keys in the last window (key=share): {}", hot);
+        }
+        hotKeys = hot;
+    }
+
+    /**
+     * Returns the keys found hot in the last completed window.
+     *
+     * @return the estimated share of sampled messages by key
+     */
+    public Map<String, Double> getHotKeys() {
+        return hotKeys;
+    }
+}
@@ -1,16 +1,34 @@
 package com.demo.kafka.service;
 
 import com.demo.kafka.config.KafkaEventService;
+import com.demo.kafka.exception.MessageExpiredException;
+import com.demo.kafka.exception.PublishRejectedException;
 import com.demo.kafka.payload.ApiResponse;
+import com.demo.kafka.payload.BatchPublishResult;
 import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.PublishReceipt;
 import com.demo.kafka.utils.GlobalConstant;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 
 @Service
@@ -18,14 +36,174 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class KafkaService {
     private final KafkaEventService<?> kafkaServiceConfig;
+    private final HotKeyDetector hotKeyDetector;
+    private final MessageKeyStrategy keyStrategy = MessageKeyStrategy.valueOf(GlobalConstant.getMessageKeyStrategy());
+    private final ObjectReader messageReader = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .readerFor(new TypeReference<KafkaMessage<String>>() {
+            });
+    private final Semaphore inFlightRequests = new Semaphore(GlobalConstant.getMaxInFlightRequests());
 
-    public ApiResponse sendMessage(KafkaMessage<String> message) {
+    /**
+     * Publishes a message; the returned future completes once the broker has acknowledged it, without
+     * blocking the calling thread in the meantime. A message the broker could not take is queued in the
+     * outbox instead, when enabled.
+     *
+     * @param message the message to publish
+     * @return the receipt of the acknowledged or queued message, or the reason it was not acknowledged
+     * @throws PublishRejectedException if too many requests are already in flight
+     */
+    public CompletableFuture<ApiResponse> sendMessage(KafkaMessage<String> message) {
+        admit();
         try {
-            kafkaServiceConfig.publishEvent(GlobalConstant.TOPIC_NAME, String.valueOf(UUID.randomUUID()), message);
-            return ApiResponse.success("Message sent successfully",null);
-        } catch (Exception e) {
-            return ApiResponse.error("Error while sending message", Collections.singletonList(e.getMessage()));
+            String key = keyFor(message);
+            return kafkaServiceConfig.publishEventAsync(GlobalConstant.TOPIC_NAME, key, message)
+                    .orTimeout(GlobalConstant.getSendTimeoutMs(), TimeUnit.MILLISECONDS)
+                    .handle((result, e) -> {
+                        if (e == null) {
+                            return ApiResponse.success("Message sent successfully",
+                                    PublishReceipt.of(message.getMessageId(), result.getRecordMetadata()));
+                        }
+                        if (spill(key, message, e)) {
+                            return ApiResponse.success("Message queued for delivery",
+                                    PublishReceipt.queued(null, message.getMessageId(), GlobalConstant.TOPIC_NAME));
+                        }
+                        if (unwrap(e) instanceof PublishRejectedException rejected) {
+                            throw rejected;
+                        }
+                        return ApiResponse.error("Error while sending message", Collections.singletonList(describe(e)));
+                    })
+                    .whenComplete((response, e) -> inFlightRequests.release());
+        } catch (RuntimeException e) {
+            inFlightRequests.release();
+            throw e;
         }
+    }
+
+    /**
+     * Publishes a list of messages and waits until every one of them is acknowledged or has failed.
+     *
+     * @param messages the messages to publish, at most {@link GlobalConstant#getMaxBatchSize()}
+     * @return a per-item result summary
+     */
+    public ApiResponse sendBatch(List<KafkaMessage<String>> messages) {
+        if (messages.size() > GlobalConstant.getMaxBatchSize()) {
+            return ApiResponse.error("Batch too large", Collections.singletonList(
+                    "At most " + GlobalConstant.getMaxBatchSize() + " messages per batch, got " + messages.size()));
+        }
+        admit();
+        try {
+            List<CompletableFuture<PublishReceipt>> receipts = new ArrayList<>(messages.size());
+            for (int i = 0; i < messages.size(); i++) {
+                receipts.add(publish(i, messages.get(i)));
+            }
+            return summarize(receipts);
+        } finally {
+            inFlightRequests.release();
+        }
+    }
+
+    /**
+     * Publishes newline-delimited JSON messages as they are read from the request body, then waits until
+     * every one of them is acknowledged or has failed. A line that cannot be parsed fails on its own. Reading
+     * stops after {@link GlobalConstant#getMaxStreamSize()} messages; the rest of the body is reported as one
+     * failed item and not published.
+     *
+     * @param body the NDJSON request body
+     * @return a per-item result summary
+     * @throws IOException if the body cannot be read
+     */
+    public ApiResponse sendStream(InputStream body) throws IOException {
+        admit();
+        List<CompletableFuture<PublishReceipt>> receipts = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int index = receipts.size();
+                if (index == GlobalConstant.getMaxStreamSize()) {
+                    receipts.add(CompletableFuture.completedFuture(PublishReceipt.failed(index, null,
+                            "At most " + index + " messages per stream, the remaining lines were not published")));
+                    break;
+                }
+                try {
+                    receipts.add(publish(index, messageReader.readValue(line)));
+                } catch (JsonProcessingException e) {
+                    receipts.add(CompletableFuture.completedFuture(
+                            PublishReceipt.failed(index, null, "Invalid message: " + e.getOriginalMessage())));
+                }
+            }
+            return summarize(receipts);
+        } finally {
+            inFlightRequests.release();
+        }
+    }
+
+    private CompletableFuture<PublishReceipt> publish(int index, KafkaMessage<String> message) {
+        if (message == null) {
+            return CompletableFuture.completedFuture(PublishReceipt.failed(index, null, "Missing message"));
+        }
+        String key = keyFor(message);
+        return kafkaServiceConfig.publishEventAsync(GlobalConstant.TOPIC_NAME, key, message)
+                .orTimeout(GlobalConstant.getSendTimeoutMs(), TimeUnit.MILLISECONDS)
+                .handle((result, e) -> {
+                    if (e == null) {
+                        return PublishReceipt.of(index, message.getMessageId(), result.getRecordMetadata());
+                    }
+                    if (spill(key, message, e)) {
+                        return PublishReceipt.queued(index, message.getMessageId(), GlobalConstant.TOPIC_NAME);
+                    }
+                    return PublishReceipt.failed(index, message.getMessageId(), describe(e));
+                });
+    }
+
+    /**
+     * Queues a message the broker did not take in the outbox; expired messages are not worth keeping.
+     */
+    private boolean spill(String key, KafkaMessage<String> message, Throwable e) {
+        return !(unwrap(e) instanceof MessageExpiredException)
+                && kafkaServiceConfig.spill(GlobalConstant.TOPIC_NAME, key, message);
+    }
+
+    private static ApiResponse summarize(List<CompletableFuture<PublishReceipt>> receipts) {
+        List<PublishReceipt> results = new ArrayList<>(receipts.size());
+        for (CompletableFuture<PublishReceipt> receipt : receipts) {
+            results.add(receipt.join());
+        }
+        BatchPublishResult summary = BatchPublishResult.of(results);
+        String message = summary.getFailed() == 0
+                ? "Messages sent successfully"
+                : summary.getFailed() + " of " + results.size() + " messages failed";
+        return ApiResponse.success(message, summary);
+    }
+
+    /**
+     * Derives the record key with the configured {@link MessageKeyStrategy} and feeds it to the hot key
+     * detector.
+     */
+    private String keyFor(KafkaMessage<?> message) {
+        String key = keyStrategy.keyFor(message);
+        hotKeyDetector.record(key);
+        return key;
+    }
+
+    /**
+     * Sheds load once {@link GlobalConstant#getMaxInFlightRequests()} requests are being processed.
+     */
+    private void admit() {
+        if (!inFlightRequests.tryAcquire()) {
+            throw new PublishRejectedException("Too many requests in flight");
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
 
+    private static String describe(Throwable e) {
+        Throwable cause = unwrap(e);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
     }
 }
@@ -0,0 +1,193 @@
+package com.demo.kafka.service;
+
+import com.demo.kafka.utils.GlobalConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the {@code messageId}s delivered during the last {@link GlobalConstant#getWindowDays()} days so
+ * that redelivered records (after rebalances, seeks or producer retries) are not pushed to clients twice.
+ * <p>
+ * Ids are stored as 64-bit fingerprints in open-addressed {@link AtomicLongArray} tables, one per day. Lookups
+ * and inserts are lock-free; only rotating to a fresh generation is synchronized. The oldest generation is
+ * dropped on every rotation, so memory is fixed at {@code windowDays * slotsPerGeneration * 8} bytes. A
+ * generation that fills up rotates early, which shortens the window under load instead of growing memory.
+ */
+@Slf4j
+@Component
+public class MessageDeduplicator {
+
+    private static final long EMPTY = 0L;
+
+    private final int slots;
+    private final int maxEntries;
+    private final Generation[] generations;
+    private volatile int current;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder rotations = new LongAdder();
+
+    public MessageDeduplicator() {
+        this(Integer.parseInt(GlobalConstant.getWindowDays()), GlobalConstant.getDedupSlotsPerGeneration());
+    }
+
+    MessageDeduplicator(int generationCount, int slotsPerGeneration) {
+        if (Integer.bitCount(slotsPerGeneration) != 1) {
+            throw new IllegalArgumentException("slotsPerGeneration must be a power of two");
+        }
+        this.slots = slotsPerGeneration;
+        this.maxEntries = slotsPerGeneration / 4 * 3;
+        this.generations = new Generation[Math.max(1, generationCount)];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = new Generation(slots);
+        }
+    }
+
+    /**
+     * Records a message id and returns whether it was seen for the first time.
+     *
+     * @param messageId the message id, null ids are never considered duplicates
+     * @return true if the id was not seen within the window
+     */
+    public boolean firstSeen(String messageId) {
+        if (messageId == null || !GlobalConstant.isDedupEnabled()) {
+            return true;
+        }
+        lookups.increment();
+        long fingerprint = fingerprint(messageId);
+        int head = current;
+        for (int i = 1; i < generations.length; i++) {
+            if (generations[(head - i + generations.length) % generations.length].contains(fingerprint)) {
+                duplicates.increment();
+                return false;
+            }
+        }
+        Generation generation = generations[head];
+        if (!generation.add(fingerprint)) {
+            duplicates.increment();
+            return false;
+        }
+        if (generation.size.get() >= maxEntries) {
+            rotate(head);
+        }
+        return true;
+    }
+
+    /**
+     * Starts a new generation once a day, forgetting the ids of the oldest one.
+     */
+    @Scheduled(fixedRate = 1, initialDelay = 1, timeUnit = TimeUnit.DAYS)
+    public void rotate() {
+        rotate(current);
+    }
+
+    private synchronized void rotate(int expected) {
+        if (current != expected) {
+            return;
+        }
+        int next = (expected + 1) % generations.length;
+        if (generations[expected].size.get() >= maxEntries) {
+            log.warn("Dedup generation full after {} ids, rotating early", generations[expected].size.get());
+        }
+        generations[next] = new Generation(slots);
+        current = next;
+        rotations.increment();
+    }
+
+    /**
+     * Returns lookup, hit rate and memory statistics of the cache.
+     *
+     * @return the statistics by name
+     */
+    public Map<String, Object> getStats() {
+        long total = lookups.sum();
+        long hits = duplicates.sum();
+        long entries = 0;
+        for (Generation generation : generations) {
+            entries += generation.size.get();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lookups", total);
+        stats.put("duplicates", hits);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits / total);
+        stats.put("entries", entries);
+        stats.put("generations", generations.length);
+        stats.put("rotations", rotations.sum());
+        stats.put("memoryBytes", (long) generations.length * slots * Long.BYTES);
+        return stats;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes followed by a murmur3 finalizer; 0 is reserved for empty slots.
+     */
+    static long fingerprint(String messageId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : messageId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    private static final class Generation {
+
+        private final AtomicLongArray table;
+        private final int mask;
+        private final AtomicInteger size = new AtomicInteger();
+
+        private Generation(int slots) {
+            this.table = new AtomicLongArray(slots);
+            this.mask = slots - 1;
+        }
+
+        private boolean contains(long fingerprint) {
+            for (int i = (int) fingerprint & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                long slot = table.get(i);
+                if (slot == fingerprint) {
+                    return true;
+                }
+                if (slot == EMPTY) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Inserts the fingerprint, returning false if it was already present or the table is full.
+         */
+        private boolean add(long fingerprint) {
+            for (int i = (int) fingerprint & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                long slot = table.get(i);
+                if (slot == fingerprint) {
+                    return false;
+                }
+                if (slot == EMPTY) {
+                    if (table.compareAndSet(i, EMPTY, fingerprint)) {
+                        size.incrementAndGet();
+                        return true;
+                    }
+                    if (table.get(i) == fingerprint) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.demo.kafka.service;
+
+import com.demo.kafka.payload.KafkaMessage;
+
+import java.util.Map;
+
+/**
+ * Derives the record key of a published message, which decides its partition: messages with the same key keep
+ * their order and land on the same consumer. A null key lets the producer's sticky partitioner fill batches
+ * without any per-record key generation.
+ */
+public enum MessageKeyStrategy {
+
+    /**
+     * No key; records are spread by the producer's sticky partitioner and carry no ordering guarantee.
+     */
+    NONE {
+        @Override
+        public String keyFor(KafkaMessage<?> message) {
+            return null;
+        }
+    },
+
+    /**
+     * Keys by {@code correlationId}, keeping every message of one flow in order.
+     */
+    CORRELATION_ID {
+        @Override
+        public String keyFor(KafkaMessage<?> message) {
+            return message.getCorrelationId();
+        }
+    },
+
+    /**
+     * Keys by the {@value #USER_HEADER} header, falling back to {@value #TENANT_HEADER}, keeping every
+     * notification of one recipient in order.
+     */
+    ENTITY {
+        @Override
+        public String keyFor(KafkaMessage<?> message) {
+            Map<String, String> headers = message.getHeaders();
+            if (headers == null) {
+                return null;
+            }
+            String user = headers.get(USER_HEADER);
+            return user != null ? user : headers.get(TENANT_HEADER);
+        }
+    },
+
+    /**
+     * Keys by {@code source}, keeping every message of one producing system in order.
+     */
+    SOURCE {
+        @Override
+        public String keyFor(KafkaMessage<?> message) {
+            return message.getSource();
+        }
+    },
+
+    /**
+     * Uses the first natural key available: the recipient ({@link #ENTITY}), then {@link #CORRELATION_ID},
+     * then {@link #SOURCE}, and no key otherwise.
+     */
+    AFFINITY {
+        @Override
+        public String keyFor(KafkaMessage<?> message) {
+            String key = ENTITY.keyFor(message);
+            if (key == null) {
+                key = CORRELATION_ID.keyFor(message);
+            }
+            return key != null ? key : SOURCE.keyFor(message);
+        }
+    };
+
+    public static final String USER_HEADER = "userId";
+    public static final String TENANT_HEADER = "tenantId";
+
+    /**
+     * Returns the record key of a message.
+     *
+     * @param message the message to publish
+     * @return the key, or null to leave partitioning to the producer
+     */
+    public abstract String keyFor(KafkaMessage<?> message);
+}
@@ -0,0 +1,320 @@
+package com.demo.kafka.service;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.payload.PriorityLane;
+import com.demo.kafka.utils.GlobalConstant;
+import com.demo.kafka.utils.LogThrottle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses bursts of similar notifications into digests between consumption and fan-out.
+ * <p>
+ * Notifications are grouped by the fields listed in {@link GlobalConstant#getDigestGroupBy()} and cut into
+ * {@link DigestWindow}s of {@link GlobalConstant#getDigestWindowMs()} by record timestamp. The first
+ * notification of a window is delivered at once; the following ones are only counted, and when the window
+ * ends a single digest is delivered in their place: operation {@value #DIGEST_OPERATION}, the type, source,
+ * headers and payload of the last absorbed notification, the count and window bounds in the
+ * {@code digest.*} headers, and a message log such as "37 new COMMENT notifications". High priority
+ * notifications are never held back, and a window that absorbed nothing closes without a digest.
+ * <p>
+ * Open windows live in a {@link DigestWindowStore} of {@link GlobalConstant#getDigestCapacity()} slots; when it
+ * is full, notifications of new groups are delivered as they come. Windows that changed are handed out by
+ * {@link #takeCheckpoints()} so that they survive a restart, see
+ * {@link com.demo.kafka.config.DigestCheckpointer}.
+ */
+@Slf4j
+@Component
+public class NotificationDigester {
+
+    public static final String DIGEST_OPERATION = "DIGEST";
+    public static final String COUNT_HEADER = "digest.count";
+    public static final String WINDOW_START_HEADER = "digest.windowStart";
+    public static final String WINDOW_END_HEADER = "digest.windowEnd";
+
+    private static final LogThrottle STORE_FULL = new LogThrottle(60_000L);
+
+    private final boolean enabled;
+    private final List<GroupBy> groupBy;
+    private final DigestWindow window;
+    private final long length;
+    private final long maxSpan;
+    private final DigestWindowStore store;
+    private final List<KafkaMessage<String>> pending = new ArrayList<>();
+    private final Set<String> closed = new LinkedHashSet<>();
+
+    private final LongAdder absorbed = new LongAdder();
+    private final LongAdder digests = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    /**
+     * A field notifications can be grouped by.
+     */
+    public enum GroupBy {
+
+        /**
+         * The record key, as derived by the configured {@link MessageKeyStrategy}.
+         */
+        KEY {
+            @Override
+            String valueOf(KafkaMessage<?> message) {
+                return MessageKeyStrategy.valueOf(GlobalConstant.getMessageKeyStrategy()).keyFor(message);
+            }
+        },
+
+        /**
+         * The {@code type} field, e.g. COMMENT.
+         */
+        TYPE {
+            @Override
+            String valueOf(KafkaMessage<?> message) {
+                return message.getType();
+            }
+        },
+
+        /**
+         * The {@code source} field, the producing system.
+         */
+        SOURCE {
+            @Override
+            String valueOf(KafkaMessage<?> message) {
+                return message.getSource();
+            }
+        };
+
+        abstract String valueOf(KafkaMessage<?> message);
+    }
+
+    /**
+     * The state of an open window, as checkpointed.
+     *
+     * @param start  epoch milliseconds at which the window starts
+     * @param end    epoch milliseconds at which the window ends
+     * @param count  the notifications absorbed so far
+     * @param latest the last absorbed notification
+     */
+    public record WindowState(long start, long end, int count, KafkaMessage<String> latest) {
+    }
+
+    public NotificationDigester() {
+        this(GlobalConstant.isDigestEnabled(),
+                Arrays.stream(GlobalConstant.getDigestGroupBy().split(",")).map(String::trim).map(GroupBy::valueOf).toList(),
+                DigestWindow.valueOf(GlobalConstant.getDigestWindow()), GlobalConstant.getDigestWindowMs(),
+                GlobalConstant.getDigestCapacity());
+    }
+
+    NotificationDigester(boolean enabled, List<GroupBy> groupBy, DigestWindow window, long length, int capacity) {
+        this.enabled = enabled;
+        this.groupBy = groupBy;
+        this.window = window;
+        this.length = length;
+        this.maxSpan = Duration.ofDays(Long.parseLong(GlobalConstant.getWindowDays())).toMillis();
+        this.store = new DigestWindowStore(enabled ? capacity : 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decides whether a notification is delivered now or absorbed into its group's open window.
+     *
+     * @param message   the consumed notification
+     * @param timestamp the record timestamp in epoch milliseconds
+     * @return true to deliver the notification, false if a later digest stands for it
+     */
+    public boolean admit(KafkaMessage<String> message, long timestamp) {
+        if (!enabled || DIGEST_OPERATION.equals(message.getOperation())
+                || PriorityLane.of(message.getPriority()) == PriorityLane.HIGH) {
+            return true;
+        }
+        String group = groupOf(message);
+        if (group == null) {
+            return true;
+        }
+        long key = MessageDeduplicator.fingerprint(group);
+        synchronized (store) {
+            int slot = store.find(key);
+            if (slot >= 0 && timestamp >= store.end(slot)) {
+                // Not swept yet; its digest goes out with the next sweep
+                close(slot, pending);
+                slot = -1;
+            }
+            if (slot < 0) {
+                long start = window.start(timestamp, length);
+                if (store.open(key, start, start + length) < 0) {
+                    bypassed.increment();
+                    long suppressed = STORE_FULL.tryAcquire();
+                    if (suppressed >= 0) {
+                        log.warn("Digest window store full at {} windows, delivering new groups undigested ({} similar suppressed)",
+                                store.size(), suppressed);
+                    }
+                }
+                return true;
+            }
+            store.absorb(slot, message, window.extend(store.start(slot), store.end(slot), timestamp, length, maxSpan));
+        }
+        absorbed.increment();
+        return false;
+    }
+
+    /**
+     * Closes the windows that ended by the given time.
+     *
+     * @param now epoch milliseconds
+     * @return the digests of the closed windows that absorbed notifications
+     */
+    public List<KafkaMessage<String>> closeWindows(long now) {
+        if (!enabled) {
+            return List.of();
+        }
+        synchronized (store) {
+            List<KafkaMessage<String>> ready = new ArrayList<>(pending);
+            pending.clear();
+            for (int slot = 0; slot < store.capacity(); ) {
+                // Closing shifts a later window into the slot, so it is looked at again
+                if (store.key(slot) != DigestWindowStore.EMPTY && store.end(slot) <= now) {
+                    close(slot, ready);
+                } else {
+                    slot++;
+                }
+            }
+            return ready;
+        }
+    }
+
+    /**
+     * Returns the windows that changed since the last call by checkpoint key, with {@code null} for the
+     * checkpointed windows that closed since.
+     *
+     * @return the changes to write to the checkpoint topic
+     */
+    public Map<String, WindowState> takeCheckpoints() {
+        Map<String, WindowState> changes = new LinkedHashMap<>();
+        synchronized (store) {
+            for (String key : closed) {
+                changes.put(key, null);
+            }
+            closed.clear();
+            for (int slot = 0; slot < store.capacity(); slot++) {
+                if (store.key(slot) != DigestWindowStore.EMPTY && store.dirty(slot)) {
+                    changes.put(Long.toHexString(store.key(slot)),
+                            new WindowState(store.start(slot), store.end(slot), store.count(slot), store.latest(slot)));
+                    store.markPersisted(slot);
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Reopens a checkpointed window, or forgets it for a {@code null} state. Windows that ended longer than
+     * {@link GlobalConstant#getWindowDays()} days ago are dropped and deleted from the checkpoints.
+     *
+     * @param checkpointKey the key returned by {@link #takeCheckpoints()}
+     * @param state         the checkpointed state, or null
+     * @throws NumberFormatException if the key is not a checkpoint key
+     */
+    public void restore(String checkpointKey, WindowState state) {
+        long key = Long.parseUnsignedLong(checkpointKey, 16);
+        boolean stale = state != null && state.end() < System.currentTimeMillis() - maxSpan;
+        synchronized (store) {
+            int slot = store.find(key);
+            if (state == null || stale || state.latest() == null) {
+                if (slot >= 0) {
+                    store.remove(slot);
+                }
+                if (stale) {
+                    closed.add(checkpointKey);
+                }
+                return;
+            }
+            closed.remove(checkpointKey);
+            if (slot < 0) {
+                slot = store.open(key, state.start(), state.end());
+            }
+            if (slot >= 0) {
+                store.restore(slot, state.start(), state.end(), state.count(), state.latest());
+            }
+        }
+    }
+
+    /**
+     * Returns window and absorption statistics.
+     *
+     * @return the statistics by name
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (store) {
+            stats.put("openWindows", store.size());
+        }
+        stats.put("absorbed", absorbed.sum());
+        stats.put("digests", digests.sum());
+        stats.put("bypassed", bypassed.sum());
+        return stats;
+    }
+
+    /**
+     * Joins the grouping fields, or returns null if none is set and the notification is not grouped.
+     */
+    private String groupOf(KafkaMessage<String> message) {
+        StringBuilder group = new StringBuilder();
+        boolean any = false;
+        for (GroupBy field : groupBy) {
+            String value = field.valueOf(message);
+            any |= value != null;
+            group.append(value == null ? "" : value).append('\u0000');
+        }
+        return any ? group.toString() : null;
+    }
+
+    private void close(int slot, List<KafkaMessage<String>> ready) {
+        if (store.count(slot) > 0) {
+            ready.add(digest(slot));
+            digests.increment();
+        }
+        if (store.wasPersisted(slot)) {
+            closed.add(Long.toHexString(store.key(slot)));
+        }
+        store.remove(slot);
+    }
+
+    private KafkaMessage<String> digest(int slot) {
+        KafkaMessage<String> latest = store.latest(slot);
+        Map<String, String> headers = latest.getHeaders() == null
+                ? new LinkedHashMap<>()
+                : new LinkedHashMap<>(latest.getHeaders());
+        headers.put(COUNT_HEADER, String.valueOf(store.count(slot)));
+        headers.put(WINDOW_START_HEADER, String.valueOf(store.start(slot)));
+        headers.put(WINDOW_END_HEADER, String.valueOf(store.end(slot)));
+        String type = latest.getType() == null ? "" : latest.getType() + " ";
+        return KafkaMessage.<String>builder()
+                // Stable across restarts, so a digest sent twice is dropped as a duplicate
+                .messageId("digest-" + Long.toHexString(store.key(slot)) + "-" + store.start(slot))
+                .correlationId(latest.getCorrelationId())
+                .type(latest.getType())
+                .operation(DIGEST_OPERATION)
+                .source(latest.getSource())
+                .success(latest.getSuccess())
+                .version(latest.getVersion())
+                .priority(latest.getPriority())
+                .messageLog(store.count(slot) + " new " + type + "notifications")
+                .timestamp(LocalDateTime.now())
+                .headers(headers)
+                .payload(latest.getPayload())
+                .build();
+    }
+}
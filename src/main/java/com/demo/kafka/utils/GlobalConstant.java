@@ -1,5 +1,7 @@
 package com.demo.kafka.utils;
 
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class GlobalConstant {
@@ -10,9 +12,71 @@ public final class GlobalConstant {
 
     public static final AtomicBoolean KAFKA_ENABLED = new AtomicBoolean(true);
     public static final String TOPIC_NAME = "notifications";
+    public static final String HIGH_PRIORITY_TOPIC_NAME = TOPIC_NAME + ".high";
+    public static final String LOW_PRIORITY_TOPIC_NAME = TOPIC_NAME + ".low";
+    public static final String CLUSTER_TOPIC_NAME = TOPIC_NAME + ".cluster";
+    public static final String DIGEST_TOPIC_NAME = TOPIC_NAME + ".digest";
+    public static final String HIGH_PRIORITY_LISTENER_ID = "notifications-high";
+    public static final String MEDIUM_PRIORITY_LISTENER_ID = "notifications-medium";
+    public static final String LOW_PRIORITY_LISTENER_ID = "notifications-low";
+    public static final String RETRY_LISTENER_ID = "notifications-retry-";
     private static final String NOTIFICATION_WINDOW_DAYS = "7";
     private static final String NOTIFICATION_GROUP = "notifications";
     private static final String NOTIFICATION_BOOTSTRAP_SERVER = "localhost:9092";
+    private static final String MESSAGE_FORMAT = "JSON";
+    private static final String PRODUCER_PROFILE = "THROUGHPUT";
+    private static final String CONSUMER_PROFILE = "THROUGHPUT";
+    private static final String MESSAGE_KEY_STRATEGY = "AFFINITY";
+    private static final boolean STICKY_PARTITIONING = false;
+    private static final int HOT_KEY_CAPACITY = 64;
+    private static final int HOT_KEY_SAMPLE_RATE = 16;
+    private static final double HOT_KEY_SHARE_THRESHOLD = 0.2;
+    private static final long HOT_KEY_MIN_SAMPLES = 100L;
+    private static final int TOPIC_PARTITIONS = 3;
+    private static final int MAX_IN_FLIGHT_SENDS = 10000;
+    private static final long PUBLISH_ACQUIRE_TIMEOUT_MS = 100L;
+    private static final long SEND_TIMEOUT_MS = 10000L;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_STREAM_SIZE = 10000;
+    private static final int MAX_IN_FLIGHT_REQUESTS = 2000;
+    private static final int RETRY_AFTER_SECONDS = 1;
+    private static final boolean PRIORITY_LANES_ENABLED = true;
+    private static final long HIGH_PRIORITY_LAG_THRESHOLD = 100L;
+    private static final int SESSION_QUEUE_CAPACITY = 1024;
+    private static final int SESSION_MAX_BATCH = 64;
+    private static final String SESSION_OVERFLOW_POLICY = "DROP_OLDEST";
+    private static final boolean DEDUP_ENABLED = true;
+    private static final int MAX_CONSUMER_CONTAINERS = 64;
+    private static final long TOPIC_METADATA_TTL_MS = 300_000L;
+    private static final long ADMIN_TIMEOUT_MS = 5_000L;
+    private static final boolean OUTBOX_ENABLED = false;
+    private static final int HISTORY_CAPACITY = 10_000;
+    private static final long RETRY_BASE_DELAY_MS = 1_000L;
+    private static final int RETRY_DELAY_MULTIPLIER = 5;
+    private static final boolean CLUSTER_ENABLED = false;
+    private static final String CLUSTER_NODE_ID = Optional.ofNullable(System.getenv("HOSTNAME"))
+            .orElseGet(() -> UUID.randomUUID().toString());
+    private static final String CLUSTER_ADVERTISED_URL = "ws://localhost:19010/ws/kafka";
+    private static final long CLUSTER_NODE_TTL_MS = 15_000L;
+    private static final int RESUME_MAX_SEEK_RECORDS = 10_000;
+    private static final long RESUME_SEEK_TIMEOUT_MS = 5_000L;
+    private static final long RESUME_MIN_INTERVAL_MS = 10_000L;
+    private static final int RESUME_CONCURRENCY = 2;
+    private static final int RESUME_QUEUE_SIZE = 8;
+    private static final String OUTBOX_DIRECTORY = Optional.ofNullable(System.getenv("OUTBOX_DIRECTORY"))
+            .orElseGet(() -> System.getProperty("user.home") + "/.kafka-notification/outbox");
+    private static final int OUTBOX_SEGMENT_BYTES = 16 * 1024 * 1024;
+    private static final int OUTBOX_DRAIN_BATCH = 500;
+    private static final long CONSUMER_IDLE_TIMEOUT_MS = 60_000L;
+    private static final int DEDUP_SLOTS_PER_GENERATION = 1 << 19;
+    private static final boolean WEBSOCKET_COMPRESSION_ENABLED = true;
+    private static final int DELTA_CORRELATION_CAPACITY = 256;
+    private static final boolean DIGEST_ENABLED = false;
+    private static final String DIGEST_GROUP_BY = "KEY,TYPE";
+    private static final String DIGEST_WINDOW = "TUMBLING";
+    private static final long DIGEST_WINDOW_MS = 60_000L;
+    private static final int DIGEST_CAPACITY = 1 << 16;
+    private static final long DIGEST_RESTORE_TIMEOUT_MS = 10_000L;
 
     public static boolean isKafkaEnabled() {
         return KAFKA_ENABLED.get();
@@ -30,4 +94,211 @@ public final class GlobalConstant {
         return NOTIFICATION_WINDOW_DAYS;
     }
 
+    public static String getMessageFormat() {
+        return MESSAGE_FORMAT;
+    }
+
+    public static String getProducerProfile() {
+        return PRODUCER_PROFILE;
+    }
+
+    public static String getConsumerProfile() {
+        return CONSUMER_PROFILE;
+    }
+
+    public static String getMessageKeyStrategy() {
+        return MESSAGE_KEY_STRATEGY;
+    }
+
+    public static boolean isStickyPartitioning() {
+        return STICKY_PARTITIONING;
+    }
+
+    public static int getHotKeyCapacity() {
+        return HOT_KEY_CAPACITY;
+    }
+
+    public static int getHotKeySampleRate() {
+        return HOT_KEY_SAMPLE_RATE;
+    }
+
+    public static double getHotKeyShareThreshold() {
+        return HOT_KEY_SHARE_THRESHOLD;
+    }
+
+    public static long getHotKeyMinSamples() {
+        return HOT_KEY_MIN_SAMPLES;
+    }
+
+    public static int getTopicPartitions() {
+        return TOPIC_PARTITIONS;
+    }
+
+    public static int getMaxInFlightSends() {
+        return MAX_IN_FLIGHT_SENDS;
+    }
+
+    public static long getPublishAcquireTimeoutMs() {
+        return PUBLISH_ACQUIRE_TIMEOUT_MS;
+    }
+
+    public static long getSendTimeoutMs() {
+        return SEND_TIMEOUT_MS;
+    }
+
+    public static int getMaxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    public static int getMaxStreamSize() {
+        return MAX_STREAM_SIZE;
+    }
+
+    public static int getMaxInFlightRequests() {
+        return MAX_IN_FLIGHT_REQUESTS;
+    }
+
+    public static int getRetryAfterSeconds() {
+        return RETRY_AFTER_SECONDS;
+    }
+
+    public static boolean isPriorityLanesEnabled() {
+        return PRIORITY_LANES_ENABLED;
+    }
+
+    public static long getHighPriorityLagThreshold() {
+        return HIGH_PRIORITY_LAG_THRESHOLD;
+    }
+
+    public static int getSessionQueueCapacity() {
+        return SESSION_QUEUE_CAPACITY;
+    }
+
+    public static int getSessionMaxBatch() {
+        return SESSION_MAX_BATCH;
+    }
+
+    public static String getSessionOverflowPolicy() {
+        return SESSION_OVERFLOW_POLICY;
+    }
+
+    public static boolean isDedupEnabled() {
+        return DEDUP_ENABLED;
+    }
+
+    public static int getDedupSlotsPerGeneration() {
+        return DEDUP_SLOTS_PER_GENERATION;
+    }
+
+    public static int getMaxConsumerContainers() {
+        return MAX_CONSUMER_CONTAINERS;
+    }
+
+    public static long getConsumerIdleTimeoutMs() {
+        return CONSUMER_IDLE_TIMEOUT_MS;
+    }
+
+    public static long getTopicMetadataTtlMs() {
+        return TOPIC_METADATA_TTL_MS;
+    }
+
+    public static long getAdminTimeoutMs() {
+        return ADMIN_TIMEOUT_MS;
+    }
+
+    public static boolean isOutboxEnabled() {
+        return OUTBOX_ENABLED;
+    }
+
+    public static String getOutboxDirectory() {
+        return OUTBOX_DIRECTORY;
+    }
+
+    public static int getOutboxSegmentBytes() {
+        return OUTBOX_SEGMENT_BYTES;
+    }
+
+    public static int getOutboxDrainBatch() {
+        return OUTBOX_DRAIN_BATCH;
+    }
+
+    public static int getHistoryCapacity() {
+        return HISTORY_CAPACITY;
+    }
+
+    public static int getResumeMaxSeekRecords() {
+        return RESUME_MAX_SEEK_RECORDS;
+    }
+
+    public static long getResumeSeekTimeoutMs() {
+        return RESUME_SEEK_TIMEOUT_MS;
+    }
+
+    public static long getResumeMinIntervalMs() {
+        return RESUME_MIN_INTERVAL_MS;
+    }
+
+    public static int getResumeConcurrency() {
+        return RESUME_CONCURRENCY;
+    }
+
+    public static int getResumeQueueSize() {
+        return RESUME_QUEUE_SIZE;
+    }
+
+    public static long getRetryBaseDelayMs() {
+        return RETRY_BASE_DELAY_MS;
+    }
+
+    public static int getRetryDelayMultiplier() {
+        return RETRY_DELAY_MULTIPLIER;
+    }
+
+    public static boolean isClusterEnabled() {
+        return CLUSTER_ENABLED;
+    }
+
+    public static String getClusterNodeId() {
+        return CLUSTER_NODE_ID;
+    }
+
+    public static String getClusterAdvertisedUrl() {
+        return CLUSTER_ADVERTISED_URL;
+    }
+
+    public static long getClusterNodeTtlMs() {
+        return CLUSTER_NODE_TTL_MS;
+    }
+
+    public static boolean isWebSocketCompressionEnabled() {
+        return WEBSOCKET_COMPRESSION_ENABLED;
+    }
+
+    public static int getDeltaCorrelationCapacity() {
+        return DELTA_CORRELATION_CAPACITY;
+    }
+
+    public static boolean isDigestEnabled() {
+        return DIGEST_ENABLED;
+    }
+
+    public static String getDigestGroupBy() {
+        return DIGEST_GROUP_BY;
+    }
+
+    public static String getDigestWindow() {
+        return DIGEST_WINDOW;
+    }
+
+    public static long getDigestWindowMs() {
+        return DIGEST_WINDOW_MS;
+    }
+
+    public static int getDigestCapacity() {
+        return DIGEST_CAPACITY;
+    }
+
+    public static long getDigestRestoreTimeoutMs() {
+        return DIGEST_RESTORE_TIMEOUT_MS;
+    }
 }
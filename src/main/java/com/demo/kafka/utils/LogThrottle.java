@@ -0,0 +1,45 @@
+package com.demo.kafka.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets at most one log line through per interval, for errors that can repeat once per record or per session.
+ * The lines held back in between are counted and reported with the next one that passes:
+ * <pre>{@code
+ * long suppressed = THROTTLE.tryAcquire();
+ * if (suppressed >= 0) {
+ *     log.warn("Send failed: {} ({} similar suppressed)", e.getMessage(), suppressed);
+ * }
+ * }</pre>
+ */
+public final class LogThrottle {
+
+    private final long intervalNanos;
+    private final AtomicLong nextAllowed = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Creates a throttle.
+     *
+     * @param intervalMillis the minimum time between two logged lines
+     */
+    public LogThrottle(long intervalMillis) {
+        this.intervalNanos = intervalMillis * 1_000_000L;
+    }
+
+    /**
+     * Returns whether a line may be logged now.
+     *
+     * @return the number of lines suppressed since the last logged one, or -1 if this line must be suppressed
+     */
+    public long tryAcquire() {
+        long now = System.nanoTime();
+        long next = nextAllowed.get();
+        if ((next == Long.MIN_VALUE || now - next >= 0) && nextAllowed.compareAndSet(next, now + intervalNanos)) {
+            return suppressed.sumThenReset();
+        }
+        suppressed.increment();
+        return -1L;
+    }
+}
@@ -0,0 +1,126 @@
+package com.demo.kafka.utils;
+
+import com.demo.kafka.payload.KafkaMessage;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expiration checks for {@link KafkaMessage#getExpirationTime()} and counters of the expired messages dropped
+ * at each pipeline stage.
+ * <p>
+ * Expiration times carry no zone and are interpreted in the system default zone. Producers also write the
+ * expiration time as epoch milliseconds into the {@value #EXPIRES_AT_HEADER} record header, so consumers can
+ * drop an expired record without parsing it.
+ */
+public final class MessageExpiry {
+
+    /**
+     * Record header carrying the expiration time as an 8-byte big-endian epoch millisecond value.
+     */
+    public static final String EXPIRES_AT_HEADER = "x-expires-at";
+
+    /**
+     * Pipeline stages at which expired messages are dropped.
+     */
+    public enum Stage {
+        PUBLISH, CONSUME, DELIVERY
+    }
+
+    private static final Map<Stage, LongAdder> DROPPED = new EnumMap<>(Stage.class);
+
+    static {
+        for (Stage stage : Stage.values()) {
+            DROPPED.put(stage, new LongAdder());
+        }
+    }
+
+    private MessageExpiry() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Returns the expiration time of a message as epoch milliseconds.
+     *
+     * @param message the message
+     * @return the expiration time, or 0 if the message does not expire
+     */
+    public static long expiresAt(KafkaMessage<?> message) {
+        LocalDateTime expirationTime = message.getExpirationTime();
+        return expirationTime == null ? 0L : expirationTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Returns whether a message has expired.
+     *
+     * @param message the message
+     * @return true if the message has an expiration time in the past
+     */
+    public static boolean isExpired(KafkaMessage<?> message) {
+        return message != null && isExpired(expiresAt(message));
+    }
+
+    /**
+     * Returns whether an expiration time lies in the past.
+     *
+     * @param expiresAt the expiration time as epoch milliseconds, 0 for none
+     * @return true if the expiration time is set and has passed
+     */
+    public static boolean isExpired(long expiresAt) {
+        return expiresAt != 0L && expiresAt <= System.currentTimeMillis();
+    }
+
+    /**
+     * Encodes an expiration time for the {@value #EXPIRES_AT_HEADER} header.
+     *
+     * @param expiresAt the expiration time as epoch milliseconds
+     * @return the header value
+     */
+    public static byte[] encodeHeader(long expiresAt) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(expiresAt).array();
+    }
+
+    /**
+     * Decodes a {@value #EXPIRES_AT_HEADER} header value.
+     *
+     * @param value the header value
+     * @return the expiration time as epoch milliseconds, or 0 if the value is malformed
+     */
+    public static long decodeHeader(byte[] value) {
+        return value != null && value.length == Long.BYTES ? ByteBuffer.wrap(value).getLong() : 0L;
+    }
+
+    /**
+     * Counts an expired message dropped at the given stage.
+     *
+     * @param stage the pipeline stage
+     */
+    public static void dropped(Stage stage) {
+        DROPPED.get(stage).increment();
+    }
+
+    /**
+     * Returns the number of expired messages dropped at a stage since startup.
+     *
+     * @param stage the stage
+     * @return the drop count
+     */
+    public static long getDropped(Stage stage) {
+        return DROPPED.get(stage).sum();
+    }
+
+    /**
+     * Returns the number of expired messages dropped per stage since startup.
+     *
+     * @return the drop counts by stage
+     */
+    public static Map<Stage, Long> getDropped() {
+        Map<Stage, Long> dropped = new EnumMap<>(Stage.class);
+        DROPPED.forEach((stage, count) -> dropped.put(stage, count.sum()));
+        return dropped;
+    }
+}
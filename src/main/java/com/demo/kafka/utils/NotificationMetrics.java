@@ -0,0 +1,78 @@
+package com.demo.kafka.utils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+
+/**
+ * Latency and duration meters of the notification pipeline.
+ * <p>
+ * The meters are registered once on Micrometer's global registry, which Spring Boot links to the application
+ * registry, so that classes instantiated by the Kafka clients, such as the serializers, can record into them
+ * as well. Each timer publishes a percentile histogram, from which the scrape endpoint derives latency
+ * percentiles; recording is a few atomic increments.
+ */
+public final class NotificationMetrics {
+
+    /**
+     * Time from handing a message to the producer to its acknowledgement by the broker.
+     */
+    public static final Timer PUBLISH_LATENCY = latency("notifications.publish.latency",
+            "Time from publishing a notification to its acknowledgement by the broker");
+
+    /**
+     * Time from the creation timestamp of a record to its consumption by a lane listener.
+     */
+    public static final Timer CONSUME_LATENCY = latency("notifications.consume.latency",
+            "Time from producing a notification record to consuming it");
+
+    /**
+     * Time from building the frame of a consumed notification to writing it to a WebSocket session.
+     */
+    public static final Timer DELIVERY_LATENCY = latency("notifications.delivery.latency",
+            "Time from consuming a notification to writing it to a WebSocket session");
+
+    /**
+     * Time to route a polled batch and queue its frames for the sessions.
+     */
+    public static final Timer FANOUT_DURATION = latency("notifications.fanout.duration",
+            "Time to route a polled batch of notifications and queue it for the WebSocket sessions");
+
+    /**
+     * Time to serialize one message.
+     */
+    public static final Timer SERIALIZE_DURATION = latency("notifications.serialize.duration",
+            "Time to serialize a notification");
+
+    /**
+     * Time to deserialize one record.
+     */
+    public static final Timer DESERIALIZE_DURATION = latency("notifications.deserialize.duration",
+            "Time to deserialize a notification record");
+
+    /**
+     * Frames queued for a WebSocket session, sampled whenever its drain task takes a batch.
+     */
+    public static final DistributionSummary SESSION_QUEUE_DEPTH = DistributionSummary
+            .builder("notifications.session.queue.depth")
+            .description("Frames queued for a WebSocket session when its drain task takes a batch")
+            .baseUnit("frames")
+            .publishPercentileHistogram()
+            .maximumExpectedValue((double) GlobalConstant.getSessionQueueCapacity())
+            .register(Metrics.globalRegistry);
+
+    private NotificationMetrics() {
+        // Prevent instantiation
+    }
+
+    private static Timer latency(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,156 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.utils.GlobalConstant;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * How a single session wants notifications encoded, chosen with a {@value SubscriptionRequest#FORMAT} request.
+ * <p>
+ * A projection keeps only the listed {@code KafkaMessage} fields, plus {@code messageId} so that the client can
+ * still resume; {@code headers.<name>} keeps a single header. In delta mode, a notification whose
+ * {@code correlationId} was already sent to the session carries only the fields that changed since, with
+ * {@code null} for removed ones, and is marked with {@value #DELTA_MARKER}. Fields are compared as whole values.
+ * The last notification of up to {@link GlobalConstant#getDeltaCorrelationCapacity()} correlation IDs is kept
+ * per session; an evicted one is sent in full again.
+ * <p>
+ * Frames are reshaped by the session's drain task as they are sent, so frames dropped from a full queue never
+ * reach the delta state, and the client's view stays consistent. Not thread-safe; used by one drain at a time.
+ */
+public class DeliveryFormat {
+
+    /**
+     * Field set to {@code true} in a notification carrying only the changed fields.
+     */
+    public static final String DELTA_MARKER = "_delta";
+
+    /**
+     * Top-level fields of a serialized {@code KafkaMessage} that can be projected.
+     */
+    public static final Set<String> FIELDS = Set.of("messageId", "correlationId", "type", "operation", "source",
+            "success", "version", "priority", "messageLog", "timestamp", "expirationTime", "headers", "payload");
+
+    private static final String MESSAGE_ID = "messageId";
+    private static final String CORRELATION_ID = "correlationId";
+    private static final String HEADERS = "headers";
+    private static final String HEADER_PREFIX = HEADERS + ".";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Set<String> fields;
+    private final boolean delta;
+    private final Map<String, ObjectNode> lastSent;
+
+    /**
+     * Creates a format.
+     *
+     * @param fields the fields to keep, empty for all
+     * @param delta  whether to send only changed fields per correlation ID
+     * @throws IllegalArgumentException if a field is unknown
+     */
+    public DeliveryFormat(Collection<String> fields, boolean delta) {
+        this.fields = new LinkedHashSet<>();
+        for (String field : fields) {
+            String topLevel = field.startsWith(HEADER_PREFIX) ? HEADERS : field;
+            if (!FIELDS.contains(topLevel)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            this.fields.add(field);
+        }
+        if (!this.fields.isEmpty()) {
+            this.fields.add(MESSAGE_ID);
+            if (delta) {
+                this.fields.add(CORRELATION_ID);
+            }
+        }
+        this.delta = delta;
+        int capacity = GlobalConstant.getDeltaCorrelationCapacity();
+        this.lastSent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ObjectNode> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the frame as this session should receive it.
+     *
+     * @param frame the queued frame
+     * @return the reshaped frame, or the frame itself if it is not a notification
+     */
+    OutboundFrame apply(OutboundFrame frame) {
+        ObjectNode tree = frame.fields() == null ? null : frame.fields().tree();
+        if (tree == null) {
+            return frame;
+        }
+        ObjectNode shaped = fields.isEmpty() ? tree : project(tree);
+        if (delta) {
+            shaped = diff(shaped);
+        }
+        try {
+            return frame.reshaped(OBJECT_MAPPER.writeValueAsString(shaped));
+        } catch (JsonProcessingException e) {
+            return frame;
+        }
+    }
+
+    private ObjectNode project(ObjectNode tree) {
+        ObjectNode projected = OBJECT_MAPPER.createObjectNode();
+        for (String field : fields) {
+            if (field.startsWith(HEADER_PREFIX)) {
+                if (fields.contains(HEADERS)) {
+                    continue;
+                }
+                JsonNode value = tree.path(HEADERS).get(field.substring(HEADER_PREFIX.length()));
+                if (value != null) {
+                    ObjectNode headers = projected.get(HEADERS) instanceof ObjectNode existing
+                            ? existing
+                            : projected.putObject(HEADERS);
+                    headers.set(field.substring(HEADER_PREFIX.length()), value);
+                }
+            } else if (tree.has(field)) {
+                projected.set(field, tree.get(field));
+            }
+        }
+        return projected;
+    }
+
+    private ObjectNode diff(ObjectNode current) {
+        JsonNode correlationId = current.get(CORRELATION_ID);
+        if (correlationId == null || !correlationId.isTextual()) {
+            return current;
+        }
+        ObjectNode previous = lastSent.put(correlationId.asText(), current);
+        if (previous == null) {
+            return current;
+        }
+        ObjectNode changes = OBJECT_MAPPER.createObjectNode();
+        changes.put(DELTA_MARKER, true);
+        if (current.has(MESSAGE_ID)) {
+            changes.set(MESSAGE_ID, current.get(MESSAGE_ID));
+        }
+        changes.set(CORRELATION_ID, correlationId);
+        for (Map.Entry<String, JsonNode> field : current.properties()) {
+            if (!Objects.equals(field.getValue(), previous.get(field.getKey()))) {
+                changes.set(field.getKey(), field.getValue());
+            }
+        }
+        for (Iterator<String> it = previous.fieldNames(); it.hasNext(); ) {
+            String name = it.next();
+            if (!current.has(name)) {
+                changes.putNull(name);
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,49 @@
+package com.demo.kafka.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+
+/**
+ * The top-level fields of a notification frame, parsed on first use and then shared by every session receiving
+ * the frame in a {@link DeliveryFormat}; sessions taking the full document never pay for the parse. The tree
+ * must not be modified.
+ */
+public final class FrameFields {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final byte[] json;
+    private volatile ObjectNode tree;
+    private volatile boolean invalid;
+
+    FrameFields(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Returns the parsed document.
+     *
+     * @return the fields, or {@code null} if the frame is not a JSON object
+     */
+    public ObjectNode tree() {
+        ObjectNode parsed = tree;
+        if (parsed == null && !invalid) {
+            // Racing drains may both parse; either result is equal
+            try {
+                JsonNode node = OBJECT_MAPPER.readTree(json);
+                if (node instanceof ObjectNode object) {
+                    parsed = object;
+                    tree = object;
+                } else {
+                    invalid = true;
+                }
+            } catch (IOException e) {
+                invalid = true;
+            }
+        }
+        return parsed;
+    }
+}
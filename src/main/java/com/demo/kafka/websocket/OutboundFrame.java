@@ -0,0 +1,111 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.payload.PriorityLane;
+import com.demo.kafka.utils.MessageExpiry;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * An immutable, pre-encoded WebSocket frame queued for delivery to one or more sessions.
+ *
+ * @param message     the encoded text frame
+ * @param coalesceKey key identifying frames that supersede each other, or {@code null}
+ * @param lane        the delivery lane; higher lanes skip ahead in a session's queue
+ * @param expiresAt   epoch milliseconds after which the frame is no longer delivered, 0 for never
+ * @param createdAt   {@link System#nanoTime()} at which the frame was built, the start of its delivery latency
+ * @param fields      the parsed fields of a notification frame, which a {@link DeliveryFormat} can reshape;
+ *                    {@code null} for frames delivered as they are, e.g. control replies
+ */
+public record OutboundFrame(TextMessage message, String coalesceKey, PriorityLane lane, long expiresAt,
+                            long createdAt, FrameFields fields) {
+
+    /**
+     * Creates a frame from an already encoded JSON document, in the {@link PriorityLane#MEDIUM} lane.
+     *
+     * @param json        the JSON document
+     * @param coalesceKey key identifying frames that supersede each other, or {@code null}
+     * @return the frame
+     */
+    public static OutboundFrame of(String json, String coalesceKey) {
+        return of(json, coalesceKey, PriorityLane.MEDIUM);
+    }
+
+    /**
+     * Creates a frame from an already encoded JSON document.
+     *
+     * @param json        the JSON document
+     * @param coalesceKey key identifying frames that supersede each other, or {@code null}
+     * @param lane        the delivery lane
+     * @return the frame
+     */
+    public static OutboundFrame of(String json, String coalesceKey, PriorityLane lane) {
+        return new OutboundFrame(new TextMessage(json), coalesceKey, lane, 0L, System.nanoTime(), null);
+    }
+
+    /**
+     * Creates a frame that shares the given UTF-8 encoded JSON bytes, e.g. the original Kafka record value.
+     * The bytes must not be modified afterwards.
+     *
+     * @param json        the UTF-8 encoded JSON document
+     * @param coalesceKey key identifying frames that supersede each other, or {@code null}
+     * @param lane        the delivery lane
+     * @param expiresAt   epoch milliseconds after which the frame is no longer delivered, 0 for never
+     * @return the frame
+     */
+    public static OutboundFrame of(byte[] json, String coalesceKey, PriorityLane lane, long expiresAt) {
+        return new OutboundFrame(new TextMessage(json), coalesceKey, lane, expiresAt, System.nanoTime(), null);
+    }
+
+    /**
+     * Creates a notification frame from the UTF-8 encoded JSON of a message, like
+     * {@link #of(byte[], String, PriorityLane, long)}, that sessions with a {@link DeliveryFormat} receive
+     * projected or as a delta.
+     *
+     * @param json        the UTF-8 encoded JSON document of the message
+     * @param coalesceKey key identifying frames that supersede each other, or {@code null}
+     * @param lane        the delivery lane
+     * @param expiresAt   epoch milliseconds after which the frame is no longer delivered, 0 for never
+     * @return the frame
+     */
+    public static OutboundFrame notification(byte[] json, String coalesceKey, PriorityLane lane, long expiresAt) {
+        return new OutboundFrame(new TextMessage(json), coalesceKey, lane, expiresAt, System.nanoTime(),
+                new FrameFields(json));
+    }
+
+    /**
+     * Returns a copy of this frame for sending again, e.g. replayed from history, whose delivery latency is
+     * counted from now.
+     *
+     * @return the copy
+     */
+    public OutboundFrame replay() {
+        return new OutboundFrame(message, coalesceKey, lane, expiresAt, System.nanoTime(), fields);
+    }
+
+    /**
+     * Returns a copy of this frame carrying another encoding of the same notification, for a single session.
+     *
+     * @param json the JSON document to send instead
+     * @return the copy, keeping the lane, expiry and creation time
+     */
+    public OutboundFrame reshaped(String json) {
+        return new OutboundFrame(new TextMessage(json), coalesceKey, lane, expiresAt, createdAt, null);
+    }
+
+    /**
+     * Returns whether this frame has expired and should no longer be delivered.
+     *
+     * @return true if the frame has expired
+     */
+    public boolean isExpired() {
+        return MessageExpiry.isExpired(expiresAt);
+    }
+
+    /**
+     * Returns the encoded JSON document carried by this frame.
+     *
+     * @return the frame payload
+     */
+    public String payload() {
+        return message.getPayload();
+    }
+}
@@ -0,0 +1,23 @@
+package com.demo.kafka.websocket;
+
+/**
+ * What a session's outbound queue does when a new frame arrives and the queue is already full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Evict the oldest queued frame to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Replace a queued frame carrying the same coalesce key (e.g. correlation ID) with the new one,
+     * falling back to {@link #DROP_OLDEST} when no such frame is queued.
+     */
+    COALESCE,
+
+    /**
+     * Treat the session as too slow to keep up and close it.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,118 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.utils.GlobalConstant;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ring buffer of the most recent {@link GlobalConstant#getHistoryCapacity()} notifications with their encoded
+ * frames, so that a reconnecting client can be sent what it missed without reading Kafka again.
+ * <p>
+ * Every recorded notification gets a sequence number; the buffer is indexed by sequence and by
+ * {@code messageId}, which is the cursor clients resume from.
+ */
+@Component
+public class RecentHistory {
+
+    private final Entry[] ring;
+    private final Map<String, Long> sequenceByMessageId;
+    private long nextSequence;
+
+    /**
+     * A recorded notification.
+     *
+     * @param sequence   the position in the notification stream
+     * @param recordedAt epoch milliseconds at which it was recorded
+     * @param message    the notification, used to re-check subscriptions on replay
+     * @param frame      the encoded frame sent to clients
+     */
+    public record Entry(long sequence, long recordedAt, KafkaMessage<?> message, OutboundFrame frame) {
+    }
+
+    public RecentHistory() {
+        this(GlobalConstant.getHistoryCapacity());
+    }
+
+    RecentHistory(int capacity) {
+        this.ring = new Entry[capacity];
+        this.sequenceByMessageId = new HashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    /**
+     * Records a notification, evicting the oldest one when the buffer is full.
+     *
+     * @param message the notification
+     * @param frame   its encoded frame
+     */
+    public synchronized void record(KafkaMessage<?> message, OutboundFrame frame) {
+        int slot = (int) (nextSequence % ring.length);
+        Entry evicted = ring[slot];
+        if (evicted != null && evicted.message().getMessageId() != null) {
+            sequenceByMessageId.remove(evicted.message().getMessageId(), evicted.sequence());
+        }
+        ring[slot] = new Entry(nextSequence, System.currentTimeMillis(), message, frame);
+        if (message.getMessageId() != null) {
+            sequenceByMessageId.put(message.getMessageId(), nextSequence);
+        }
+        nextSequence++;
+    }
+
+    /**
+     * Returns the sequence number the next notification will get.
+     *
+     * @return the next sequence number
+     */
+    public synchronized long nextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Returns the buffered notifications after the given message and before a sequence number.
+     *
+     * @param messageId the last message the client has seen
+     * @param before    the first sequence number to exclude
+     * @return the notifications, oldest first, or null if the message is no longer buffered
+     */
+    public synchronized List<Entry> after(String messageId, long before) {
+        Long sequence = messageId == null ? null : sequenceByMessageId.get(messageId);
+        return sequence == null ? null : range(sequence + 1, before);
+    }
+
+    /**
+     * Returns every buffered notification before a sequence number.
+     *
+     * @param before the first sequence number to exclude
+     * @return the notifications, oldest first
+     */
+    public synchronized List<Entry> before(long before) {
+        return range(nextSequence - Math.min(nextSequence, ring.length), before);
+    }
+
+    /**
+     * Returns the time at which the oldest buffered notification was recorded.
+     *
+     * @return epoch milliseconds, or the current time if the buffer is empty
+     */
+    public synchronized long oldestRecordedAt() {
+        if (nextSequence == 0) {
+            return System.currentTimeMillis();
+        }
+        long oldest = nextSequence - Math.min(nextSequence, ring.length);
+        return ring[(int) (oldest % ring.length)].recordedAt();
+    }
+
+    private List<Entry> range(long from, long to) {
+        long start = Math.max(from, nextSequence - Math.min(nextSequence, ring.length));
+        long end = Math.min(to, nextSequence);
+        List<Entry> entries = new ArrayList<>((int) Math.max(0, end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            entries.add(ring[(int) (sequence % ring.length)]);
+        }
+        return entries;
+    }
+}
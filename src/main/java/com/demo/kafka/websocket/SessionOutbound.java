@@ -0,0 +1,307 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.payload.PriorityLane;
+import com.demo.kafka.utils.LogThrottle;
+import com.demo.kafka.utils.MessageExpiry;
+import com.demo.kafka.utils.NotificationMetrics;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded outbound queue of a single WebSocket session.
+ * <p>
+ * Producers only enqueue; at most one drain task per session runs on the sender executor at a time, so
+ * {@link WebSocketSession#sendMessage} is never called concurrently for the same session. When frames pile
+ * up faster than the client reads them, the drain task sends them as one JSON array frame.
+ * <p>
+ * Frames are queued per {@link PriorityLane}: higher lanes are always sent first and overflow evicts from the
+ * lowest non-empty lane, so high priority notifications skip ahead of a low priority backlog. Frames that
+ * expire while queued are discarded instead of sent, and are the first to go when the queue is full.
+ * <p>
+ * A session with a {@link DeliveryFormat} has its notification frames reshaped by the drain task, right before
+ * they are sent.
+ */
+@Slf4j
+public class SessionOutbound {
+
+    private static final LogThrottle SEND_ERRORS = new LogThrottle(1_000L);
+
+    @Getter
+    private final WebSocketSession session;
+    private final int capacity;
+    private final int maxBatch;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor sender;
+
+    private final ArrayDeque<OutboundFrame>[] lanes;
+    private final LongAdder dropped = new LongAdder();
+    private volatile DeliveryFormat format;
+    private int size;
+    private boolean draining;
+    private boolean closed;
+
+    public SessionOutbound(WebSocketSession session, int capacity, int maxBatch,
+                           OverflowPolicy overflowPolicy, Executor sender) {
+        this.session = session;
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+        this.overflowPolicy = overflowPolicy;
+        this.sender = sender;
+        this.lanes = newLanes();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<OutboundFrame>[] newLanes() {
+        ArrayDeque<OutboundFrame>[] lanes = new ArrayDeque[PriorityLane.values().length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+        return lanes;
+    }
+
+    /**
+     * Queues a frame for delivery and schedules a drain if none is running.
+     *
+     * @param frame the frame to deliver
+     * @return false if the session is closed or was disconnected by the overflow policy
+     */
+    public boolean offer(OutboundFrame frame) {
+        return offerAll(List.of(frame));
+    }
+
+    /**
+     * Queues several frames under one lock and schedules at most one drain for them.
+     *
+     * @param frames the frames to deliver, in order
+     * @return false if the session is closed or was disconnected by the overflow policy
+     */
+    public boolean offerAll(List<OutboundFrame> frames) {
+        boolean schedule;
+        synchronized (this) {
+            for (OutboundFrame frame : frames) {
+                if (!enqueue(frame)) {
+                    return false;
+                }
+            }
+            schedule = !draining && size > 0;
+            draining |= schedule;
+        }
+        if (schedule) {
+            sender.execute(this::drain);
+        }
+        return true;
+    }
+
+    private boolean enqueue(OutboundFrame frame) {
+        if (closed) {
+            return false;
+        }
+        if (size >= capacity) {
+            evictExpired();
+        }
+        if (size >= capacity) {
+            if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                clear();
+                closed = true;
+                sender.execute(() -> closeSession(CloseStatus.POLICY_VIOLATION.withReason("Outbound queue overflow")));
+                return false;
+            }
+            if (overflowPolicy == OverflowPolicy.COALESCE && replace(frame)) {
+                return true;
+            }
+            if (!evictLowest(frame.lane())) {
+                dropped.increment();
+                return true;
+            }
+        }
+        lanes[frame.lane().ordinal()].addLast(frame);
+        size++;
+        return true;
+    }
+
+    /**
+     * Stops accepting frames and discards everything still queued.
+     */
+    public synchronized void close() {
+        closed = true;
+        clear();
+    }
+
+    /**
+     * Returns the number of frames waiting to be sent.
+     *
+     * @return the queue depth
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Changes how notifications are encoded for this session, starting with the next frame sent.
+     *
+     * @param format the format, or {@code null} for the full documents
+     */
+    public void setFormat(DeliveryFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Returns the number of frames discarded because the queue was full.
+     *
+     * @return the dropped frame count
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Drops the queued frame with the same coalesce key in favour of the new one.
+     */
+    private boolean replace(OutboundFrame frame) {
+        if (frame.coalesceKey() == null) {
+            return false;
+        }
+        for (ArrayDeque<OutboundFrame> lane : lanes) {
+            List<OutboundFrame> kept = new ArrayList<>(lane.size());
+            boolean replaced = false;
+            for (Iterator<OutboundFrame> it = lane.iterator(); it.hasNext(); ) {
+                OutboundFrame queued = it.next();
+                if (!replaced && Objects.equals(queued.coalesceKey(), frame.coalesceKey())) {
+                    replaced = true;
+                } else {
+                    kept.add(queued);
+                }
+            }
+            if (replaced) {
+                lane.clear();
+                lane.addAll(kept);
+                lanes[frame.lane().ordinal()].addLast(frame);
+                dropped.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evicts the oldest frame of the lowest non-empty lane, unless that lane is above the lane of the
+     * incoming frame, in which case the incoming frame is the one to drop.
+     */
+    private boolean evictLowest(PriorityLane incoming) {
+        for (int i = lanes.length - 1; i >= incoming.ordinal(); i--) {
+            if (lanes[i].pollFirst() != null) {
+                size--;
+                dropped.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evictExpired() {
+        for (ArrayDeque<OutboundFrame> lane : lanes) {
+            for (Iterator<OutboundFrame> it = lane.iterator(); it.hasNext(); ) {
+                if (it.next().isExpired()) {
+                    it.remove();
+                    size--;
+                    MessageExpiry.dropped(MessageExpiry.Stage.DELIVERY);
+                }
+            }
+        }
+    }
+
+    private void clear() {
+        for (ArrayDeque<OutboundFrame> lane : lanes) {
+            lane.clear();
+        }
+        size = 0;
+    }
+
+    private void drain() {
+        while (true) {
+            List<OutboundFrame> batch;
+            synchronized (this) {
+                if (closed || size == 0) {
+                    draining = false;
+                    return;
+                }
+                NotificationMetrics.SESSION_QUEUE_DEPTH.record(size);
+                batch = new ArrayList<>(Math.min(size, maxBatch));
+                for (ArrayDeque<OutboundFrame> lane : lanes) {
+                    while (batch.size() < maxBatch && !lane.isEmpty()) {
+                        OutboundFrame frame = lane.pollFirst();
+                        size--;
+                        if (frame.isExpired()) {
+                            MessageExpiry.dropped(MessageExpiry.Stage.DELIVERY);
+                        } else {
+                            batch.add(frame);
+                        }
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            DeliveryFormat format = this.format;
+            if (format != null) {
+                batch.replaceAll(format::apply);
+            }
+            try {
+                if (session.isOpen()) {
+                    session.sendMessage(encode(batch));
+                    long now = System.nanoTime();
+                    for (OutboundFrame frame : batch) {
+                        NotificationMetrics.DELIVERY_LATENCY.record(now - frame.createdAt(), TimeUnit.NANOSECONDS);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                long suppressed = SEND_ERRORS.tryAcquire();
+                if (suppressed >= 0) {
+                    log.warn("Error sending to WebSocket session {}: {} ({} similar errors suppressed)",
+                            session.getId(), e.getMessage(), suppressed);
+                }
+                close();
+                closeSession(CloseStatus.SERVER_ERROR);
+            }
+        }
+    }
+
+    private static TextMessage encode(List<OutboundFrame> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0).message();
+        }
+        int length = batch.size() + 1;
+        for (OutboundFrame frame : batch) {
+            length += frame.payload().length();
+        }
+        StringBuilder json = new StringBuilder(length).append('[');
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(batch.get(i).payload());
+        }
+        return new TextMessage(json.append(']'));
+    }
+
+    private void closeSession(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Error closing WebSocket session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.payload.KafkaMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from message attribute values to the subscriptions that filter on them.
+ * <p>
+ * Each subscription is indexed under a single one of its filters (the most selective kind available) and
+ * its remaining filters are checked only for the candidates found through that entry. Routing a message
+ * therefore costs one lookup per message attribute plus the matching subscribers, independent of the
+ * number of connected sessions. Sessions without any subscription receive every message.
+ */
+@Component
+public class SubscriptionRegistry {
+
+    public static final String TYPE = "type";
+    public static final String OPERATION = "operation";
+    public static final String SOURCE = "source";
+    public static final String PRIORITY = "priority";
+    public static final String HEADER_PREFIX = "headers.";
+
+    /**
+     * Filter kinds from most to least selective, used to pick the index entry of a subscription.
+     */
+    private static final List<String> SELECTIVITY = List.of(SOURCE, OPERATION, TYPE, PRIORITY);
+
+    private final Map<String, Set<Subscription>> index = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Subscription>> bySession = new ConcurrentHashMap<>();
+    private final Set<String> unfiltered = ConcurrentHashMap.newKeySet();
+
+    /**
+     * A single client subscription.
+     *
+     * @param sessionId the subscribing session
+     * @param id        the client-chosen subscription ID
+     * @param filters   attribute filters that must all match
+     * @param indexKey  the index entry this subscription is stored under
+     */
+    public record Subscription(String sessionId, String id, Map<String, String> filters, String indexKey) {
+
+        boolean matches(KafkaMessage<?> message) {
+            for (Map.Entry<String, String> filter : filters.entrySet()) {
+                if (!Objects.equals(filter.getValue(), attribute(message, filter.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Registers a newly connected session, which receives every message until it subscribes.
+     *
+     * @param sessionId the session ID
+     */
+    public void register(String sessionId) {
+        bySession.put(sessionId, new ConcurrentHashMap<>());
+        unfiltered.add(sessionId);
+    }
+
+    /**
+     * Removes a session and all of its subscriptions.
+     *
+     * @param sessionId the session ID
+     */
+    public void unregister(String sessionId) {
+        unfiltered.remove(sessionId);
+        Map<String, Subscription> subscriptions = bySession.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::unindex);
+        }
+    }
+
+    /**
+     * Adds or replaces a subscription of a session. A subscription without filters matches every message.
+     *
+     * @param sessionId      the session ID
+     * @param subscriptionId the client-chosen subscription ID, or null to have one generated
+     * @param filters        attribute filters that must all match
+     * @return the subscription ID
+     * @throws IllegalArgumentException if a filter key is unknown or a filter value is missing
+     */
+    public String subscribe(String sessionId, String subscriptionId, Map<String, String> filters) {
+        if (subscriptionId == null || subscriptionId.isBlank()) {
+            subscriptionId = UUID.randomUUID().toString();
+        }
+        Map<String, Subscription> subscriptions = bySession.get(sessionId);
+        if (subscriptions == null) {
+            return subscriptionId;
+        }
+        Map<String, String> copy = filters == null ? Map.of() : filters;
+        for (Map.Entry<String, String> filter : copy.entrySet()) {
+            if (filter.getKey() == null
+                    || !filter.getKey().startsWith(HEADER_PREFIX) && !SELECTIVITY.contains(filter.getKey())) {
+                throw new IllegalArgumentException("Unknown subscription filter: " + filter.getKey());
+            }
+            if (filter.getValue() == null) {
+                throw new IllegalArgumentException("Missing value for subscription filter: " + filter.getKey());
+            }
+        }
+        copy = Map.copyOf(copy);
+        Subscription subscription = new Subscription(sessionId, subscriptionId, copy, indexKey(copy));
+        Subscription previous = subscriptions.put(subscriptionId, subscription);
+        if (previous != null) {
+            unindex(previous);
+        }
+        if (subscription.indexKey() != null) {
+            index.compute(subscription.indexKey(), (key, subscribers) -> {
+                Set<Subscription> set = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+                set.add(subscription);
+                return set;
+            });
+        }
+        updateUnfiltered(sessionId, subscriptions);
+        return subscriptionId;
+    }
+
+    /**
+     * Removes a subscription of a session.
+     *
+     * @param sessionId      the session ID
+     * @param subscriptionId the client-chosen subscription ID
+     * @throws IllegalArgumentException if the subscription ID is missing
+     */
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        if (subscriptionId == null) {
+            throw new IllegalArgumentException("Missing subscription id");
+        }
+        Map<String, Subscription> subscriptions = bySession.get(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+        Subscription removed = subscriptions.remove(subscriptionId);
+        if (removed != null) {
+            unindex(removed);
+        }
+        updateUnfiltered(sessionId, subscriptions);
+    }
+
+    /**
+     * Returns the IDs of the sessions that should receive the given message.
+     *
+     * @param message the message to route
+     * @return the matching session IDs
+     */
+    public Set<String> route(KafkaMessage<?> message) {
+        Set<String> sessionIds = new HashSet<>(unfiltered);
+        collect(message, TYPE, message.getType(), sessionIds);
+        collect(message, OPERATION, message.getOperation(), sessionIds);
+        collect(message, SOURCE, message.getSource(), sessionIds);
+        collect(message, PRIORITY, message.getPriority(), sessionIds);
+        if (message.getHeaders() != null) {
+            for (Map.Entry<String, String> header : message.getHeaders().entrySet()) {
+                collect(message, HEADER_PREFIX + header.getKey(), header.getValue(), sessionIds);
+            }
+        }
+        return sessionIds;
+    }
+
+    /**
+     * Returns whether a single session should receive the given message.
+     *
+     * @param sessionId the session ID
+     * @param message   the message to check
+     * @return true if the session receives everything or one of its subscriptions matches
+     */
+    public boolean matches(String sessionId, KafkaMessage<?> message) {
+        if (unfiltered.contains(sessionId)) {
+            return true;
+        }
+        Map<String, Subscription> subscriptions = bySession.get(sessionId);
+        return subscriptions != null && subscriptions.values().stream().anyMatch(subscription -> subscription.matches(message));
+    }
+
+    /**
+     * Returns the subscriptions of a session.
+     *
+     * @param sessionId the session ID
+     * @return the subscriptions keyed by subscription ID
+     */
+    public Map<String, Subscription> getSubscriptions(String sessionId) {
+        return Collections.unmodifiableMap(bySession.getOrDefault(sessionId, Map.of()));
+    }
+
+    private void collect(KafkaMessage<?> message, String attribute, String value, Set<String> sessionIds) {
+        if (value == null) {
+            return;
+        }
+        Set<Subscription> candidates = index.get(key(attribute, value));
+        if (candidates == null) {
+            return;
+        }
+        for (Subscription candidate : candidates) {
+            if (!sessionIds.contains(candidate.sessionId()) && candidate.matches(message)) {
+                sessionIds.add(candidate.sessionId());
+            }
+        }
+    }
+
+    private void unindex(Subscription subscription) {
+        if (subscription.indexKey() == null) {
+            return;
+        }
+        index.computeIfPresent(subscription.indexKey(), (key, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    /**
+     * A session receives everything while it has no subscriptions, or when one of them has no filters.
+     */
+    private void updateUnfiltered(String sessionId, Map<String, Subscription> subscriptions) {
+        boolean matchAll = subscriptions.isEmpty()
+                || subscriptions.values().stream().anyMatch(subscription -> subscription.indexKey() == null);
+        if (matchAll) {
+            unfiltered.add(sessionId);
+        } else {
+            unfiltered.remove(sessionId);
+        }
+    }
+
+    private static String indexKey(Map<String, String> filters) {
+        for (String attribute : filters.keySet()) {
+            if (attribute.startsWith(HEADER_PREFIX)) {
+                return key(attribute, filters.get(attribute));
+            }
+        }
+        for (String attribute : SELECTIVITY) {
+            if (filters.containsKey(attribute)) {
+                return key(attribute, filters.get(attribute));
+            }
+        }
+        return null;
+    }
+
+    private static String key(String attribute, String value) {
+        return attribute + '\u0000' + value;
+    }
+
+    private static String attribute(KafkaMessage<?> message, String attribute) {
+        if (attribute.startsWith(HEADER_PREFIX)) {
+            return message.getHeaders() == null ? null : message.getHeaders().get(attribute.substring(HEADER_PREFIX.length()));
+        }
+        return switch (attribute) {
+            case TYPE -> message.getType();
+            case OPERATION -> message.getOperation();
+            case SOURCE -> message.getSource();
+            case PRIORITY -> message.getPriority();
+            default -> null;
+        };
+    }
+}
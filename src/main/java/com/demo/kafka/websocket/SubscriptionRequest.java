@@ -0,0 +1,69 @@
+package com.demo.kafka.websocket;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Control message sent by a WebSocket client to change what it receives, e.g.
+ * <pre>{@code
+ * {"action":"subscribe","id":"alerts","filters":{"type":"ALERT","headers.tenant":"acme"}}
+ * {"action":"unsubscribe","id":"alerts"}
+ * {"action":"resume","lastMessageId":"m-42","since":1760000000000}
+ * {"action":"format","fields":["type","payload","headers.tenant"],"delta":true}
+ * }</pre>
+ * Filter keys are {@code type}, {@code operation}, {@code source}, {@code priority} or {@code headers.<name>};
+ * a message matches a subscription when it equals every filter value. A {@value #RESUME} request asks for the
+ * notifications missed since the last one the client received, and should be sent after subscribing. A
+ * {@value #FORMAT} request changes how the session's notifications are encoded; see {@link DeliveryFormat}.
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SubscriptionRequest {
+
+    public static final String SUBSCRIBE = "subscribe";
+    public static final String UNSUBSCRIBE = "unsubscribe";
+    public static final String RESUME = "resume";
+    public static final String FORMAT = "format";
+
+    /**
+     * The requested action, {@value #SUBSCRIBE}, {@value #UNSUBSCRIBE}, {@value #RESUME} or {@value #FORMAT}.
+     */
+    private String action;
+
+    /**
+     * Client-chosen subscription ID, unique per session; generated for a {@value #SUBSCRIBE} request without
+     * one and returned in the reply.
+     */
+    private String id;
+
+    /**
+     * Attribute filters that must all match.
+     */
+    private Map<String, String> filters;
+
+    /**
+     * For {@value #RESUME}: ID of the last message the client received.
+     */
+    private String lastMessageId;
+
+    /**
+     * For {@value #RESUME}: epoch milliseconds from which to read Kafka when {@link #lastMessageId} is no longer
+     * held in memory.
+     */
+    private Long since;
+
+    /**
+     * For {@value #FORMAT}: the message fields to receive, all if empty.
+     */
+    private List<String> fields;
+
+    /**
+     * For {@value #FORMAT}: whether repeated notifications of a correlation ID carry only the changed fields.
+     */
+    private Boolean delta;
+}
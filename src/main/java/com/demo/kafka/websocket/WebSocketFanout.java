@@ -0,0 +1,139 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.utils.GlobalConstant;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fans frames out to connected WebSocket sessions through per-session bounded queues.
+ * <p>
+ * The caller (typically the Kafka listener thread) only enqueues; each session is drained by its own
+ * virtual thread, so a slow client can neither block the consumer nor delay other clients.
+ */
+@Slf4j
+@Component
+public class WebSocketFanout {
+
+    private final Map<String, SessionOutbound> outbounds = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final OverflowPolicy overflowPolicy = OverflowPolicy.valueOf(GlobalConstant.getSessionOverflowPolicy());
+
+    /**
+     * Starts delivering frames to the given session.
+     *
+     * @param session the newly connected session
+     */
+    public void register(WebSocketSession session) {
+        outbounds.put(session.getId(), new SessionOutbound(session, GlobalConstant.getSessionQueueCapacity(),
+                GlobalConstant.getSessionMaxBatch(), overflowPolicy, sender));
+    }
+
+    /**
+     * Stops delivering frames to the given session and discards its queue.
+     *
+     * @param session the closed session
+     */
+    public void unregister(WebSocketSession session) {
+        SessionOutbound outbound = outbounds.remove(session.getId());
+        if (outbound != null) {
+            outbound.close();
+        }
+    }
+
+    /**
+     * Queues a frame for every connected session.
+     *
+     * @param frame the frame to deliver
+     */
+    public void broadcast(OutboundFrame frame) {
+        for (SessionOutbound outbound : outbounds.values()) {
+            outbound.offer(frame);
+        }
+    }
+
+    /**
+     * Queues a frame for the given sessions; unknown session IDs are ignored.
+     *
+     * @param sessionIds the IDs of the receiving sessions
+     * @param frame      the frame to deliver
+     */
+    public void send(Collection<String> sessionIds, OutboundFrame frame) {
+        for (String sessionId : sessionIds) {
+            send(sessionId, frame);
+        }
+    }
+
+    /**
+     * Queues a frame for a single session; an unknown session ID is ignored.
+     *
+     * @param sessionId the ID of the receiving session
+     * @param frame     the frame to deliver
+     */
+    public void send(String sessionId, OutboundFrame frame) {
+        SessionOutbound outbound = outbounds.get(sessionId);
+        if (outbound != null) {
+            outbound.offer(frame);
+        }
+    }
+
+    /**
+     * Queues several frames per session, scheduling each session's drain at most once; unknown session IDs
+     * are ignored.
+     *
+     * @param framesBySession the frames to deliver, by receiving session ID
+     */
+    public void send(Map<String, List<OutboundFrame>> framesBySession) {
+        framesBySession.forEach((sessionId, frames) -> {
+            SessionOutbound outbound = outbounds.get(sessionId);
+            if (outbound != null) {
+                outbound.offerAll(frames);
+            }
+        });
+    }
+
+    /**
+     * Changes how notifications are encoded for a session; an unknown session ID is ignored.
+     *
+     * @param sessionId the ID of the session
+     * @param format    the format, or {@code null} for the full documents
+     */
+    public void setFormat(String sessionId, DeliveryFormat format) {
+        SessionOutbound outbound = outbounds.get(sessionId);
+        if (outbound != null) {
+            outbound.setFormat(format);
+        }
+    }
+
+    /**
+     * Returns the outbound queues of all connected sessions.
+     *
+     * @return the live outbound queues
+     */
+    public Collection<SessionOutbound> getOutbounds() {
+        return outbounds.values();
+    }
+
+    /**
+     * Returns the number of connected sessions.
+     *
+     * @return the session count
+     */
+    public int size() {
+        return outbounds.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        outbounds.values().forEach(SessionOutbound::close);
+        sender.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+package com.demo.kafka.config;
+
+import org.apache.kafka.clients.producer.internals.BuiltInPartitioner;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterMembershipTests {
+
+	@Test
+	void routesKeysToTheProducerPartition() {
+		List<String> keys = new ArrayList<>(List.of("", "user", "ünïcödé-user", "42"));
+		for (int i = 0; i < 1000; i++) {
+			keys.add("user-" + i);
+		}
+		for (int partitions : new int[]{1, 3, 12, 50}) {
+			for (String key : keys) {
+				assertThat(ClusterMembership.partitionFor(key, partitions))
+						.as("partition of %s among %d", key, partitions)
+						.isEqualTo(BuiltInPartitioner.partitionForKey(key.getBytes(StandardCharsets.UTF_8), partitions));
+			}
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.utils.GlobalConstant;
+import com.demo.kafka.utils.MessageExpiry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConsumerContainerRegistryTests {
+
+	private static final ConsumerContainerRegistry.Key KEY = key("group");
+
+	private final List<ContainerProperties> created = new ArrayList<>();
+	private final List<KafkaMessageListenerContainer<String, KafkaMessage<?>>> containers = new ArrayList<>();
+
+	@SuppressWarnings("unchecked")
+	private final ConsumerContainerRegistry registry = new ConsumerContainerRegistry(mock(ConsumerFactory.class)) {
+
+		@Override
+		KafkaMessageListenerContainer<String, KafkaMessage<?>> newContainer(ContainerProperties containerProps) {
+			KafkaMessageListenerContainer<String, KafkaMessage<?>> container = mock(KafkaMessageListenerContainer.class);
+			when(container.isRunning()).thenReturn(true);
+			created.add(containerProps);
+			containers.add(container);
+			return container;
+		}
+	};
+
+	@Test
+	void sharesOneContainerPerKey() {
+		List<String> first = new ArrayList<>();
+		List<String> second = new ArrayList<>();
+		registry.attach(KEY, collect(first));
+		registry.attach(KEY, collect(second));
+
+		deliver(0, record(0, message("m0", null)));
+
+		assertThat(containers).hasSize(1);
+		verify(containers.get(0)).start();
+		assertThat(created.get(0).getGroupId()).isEqualTo("group");
+		assertThat(first).containsExactly("m0");
+		assertThat(second).containsExactly("m0");
+		assertThat(registry.getContainers().get(KEY)).containsEntry("listeners", 2);
+	}
+
+	@Test
+	void reclaimsContainerOnceIdlePastTimeout() {
+		ConsumerContainerRegistry.Registration registration = registry.attach(KEY, collect(new ArrayList<>()));
+		long detachedAt = System.currentTimeMillis();
+		registration.close();
+
+		registry.reclaimIdle(detachedAt + GlobalConstant.getConsumerIdleTimeoutMs() - 1);
+		assertThat(registry.getContainers()).containsKey(KEY);
+		verify(containers.get(0), never()).stop();
+
+		registry.reclaimIdle(System.currentTimeMillis() + GlobalConstant.getConsumerIdleTimeoutMs());
+		assertThat(registry.getContainers()).isEmpty();
+		verify(containers.get(0)).stop();
+	}
+
+	@Test
+	void keepsContainerReattachedBeforeTimeout() {
+		registry.attach(KEY, collect(new ArrayList<>())).close();
+		registry.attach(KEY, collect(new ArrayList<>()));
+
+		registry.reclaimIdle(System.currentTimeMillis() + GlobalConstant.getConsumerIdleTimeoutMs());
+
+		assertThat(containers).hasSize(1);
+		assertThat(registry.getContainers()).containsKey(KEY);
+		verify(containers.get(0), never()).stop();
+	}
+
+	@Test
+	void replacesStoppedContainerKeepingItsListeners() {
+		List<String> first = new ArrayList<>();
+		List<String> second = new ArrayList<>();
+		registry.attach(KEY, collect(first));
+		when(containers.get(0).isRunning()).thenReturn(false);
+
+		registry.attach(KEY, collect(second));
+		deliver(1, record(0, message("m0", null)));
+
+		assertThat(containers).hasSize(2);
+		verify(containers.get(1)).start();
+		assertThat(first).containsExactly("m0");
+		assertThat(second).containsExactly("m0");
+		assertThat(registry.getContainers().get(KEY)).containsEntry("listeners", 2);
+	}
+
+	@Test
+	void capDoesNotCountReplacements() {
+		int max = GlobalConstant.getMaxConsumerContainers();
+		for (int i = 0; i < max; i++) {
+			registry.attach(key("group-" + i), collect(new ArrayList<>()));
+		}
+		assertThatIllegalStateException().isThrownBy(() -> registry.attach(key("group-" + max), collect(new ArrayList<>())));
+
+		when(containers.get(0).isRunning()).thenReturn(false);
+		registry.attach(key("group-0"), collect(new ArrayList<>()));
+
+		assertThat(containers).hasSize(max + 1);
+		assertThat(registry.getContainers()).hasSize(max);
+	}
+
+	@Test
+	void dropsExpiredRecordsBeforeListeners() {
+		List<String> received = new ArrayList<>();
+		registry.attach(KEY, collect(received));
+		KafkaMessage<String> expired = new KafkaMessage<>();
+		expired.setExpirationTime(LocalDateTime.now().minusMinutes(1));
+		long dropped = MessageExpiry.getDropped(MessageExpiry.Stage.CONSUME);
+
+		deliver(0, record(0, expired));
+		deliver(0, record(1, message("m1", null)));
+
+		assertThat(received).containsExactly("m1");
+		assertThat(MessageExpiry.getDropped(MessageExpiry.Stage.CONSUME)).isEqualTo(dropped + 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void deliver(int container, ConsumerRecord<String, KafkaMessage<?>> record) {
+		((MessageListener<String, KafkaMessage<?>>) created.get(container).getMessageListener()).onMessage(record);
+	}
+
+	private static MessageListener<String, KafkaMessage<String>> collect(List<String> messageIds) {
+		return record -> messageIds.add(record.value().getMessageId());
+	}
+
+	private static ConsumerContainerRegistry.Key key(String groupId) {
+		return new ConsumerContainerRegistry.Key(List.of("notifications"), groupId, "client");
+	}
+
+	private static ConsumerRecord<String, KafkaMessage<?>> record(long offset, KafkaMessage<?> value) {
+		return new ConsumerRecord<>("notifications", 0, offset, "k", value);
+	}
+
+	private static KafkaMessage<String> message(String id, LocalDateTime expirationTime) {
+		return KafkaMessage.<String>builder()
+				.messageId(id)
+				.type("COMMENT")
+				.expirationTime(expirationTime)
+				.payload(id)
+				.build();
+	}
+}
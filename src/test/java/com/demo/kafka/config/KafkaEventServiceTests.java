@@ -0,0 +1,98 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.exception.PublishRejectedException;
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.utils.GlobalConstant;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaEventServiceTests {
+
+	private static final String TOPIC = GlobalConstant.TOPIC_NAME;
+
+	private final MockProducer<String, KafkaMessage<?>> producer = new MockProducer<>(false, null,
+			new StringSerializer(), (topic, message) -> new byte[0]) {
+
+		@Override
+		public void close() {
+			// Reused by the template for every send
+		}
+
+		@Override
+		public void close(Duration timeout) {
+			// Reused by the template for every send
+		}
+	};
+
+	private final KafkaEventService<String> service = new KafkaEventService<>(
+			new KafkaTemplate<>(new MockProducerFactory<>(() -> producer)), null, null, null, null, null);
+
+	@Test
+	void releasesSendsOnAcknowledgementAndFailure() {
+		List<CompletableFuture<SendResult<String, KafkaMessage<?>>>> sent = service.publishBatch(TOPIC,
+				List.of(message("m0"), message("m1"), message("m2")), KafkaMessage::getMessageId);
+		assertThat(service.getInFlightSends()).isEqualTo(3);
+
+		producer.completeNext();
+		producer.errorNext(new IllegalStateException("broker down"));
+		assertThat(service.getInFlightSends()).isEqualTo(1);
+		producer.completeNext();
+
+		assertThat(sent.get(0)).isCompleted();
+		assertThat(sent.get(1)).isCompletedExceptionally();
+		assertThat(sent.get(2)).isCompleted();
+		assertThat(service.getInFlightSends()).isZero();
+	}
+
+	@Test
+	void releasesSendWhenProducerThrows() {
+		producer.sendException = new IllegalStateException("producer closed");
+
+		CompletableFuture<SendResult<String, KafkaMessage<?>>> sent = service.publishEventAsync(TOPIC, "k", message("m0"));
+
+		assertThat(sent).isCompletedExceptionally();
+		assertThat(service.getInFlightSends()).isZero();
+	}
+
+	@Test
+	void rejectsOnceLimitIsReached() {
+		List<KafkaMessage<?>> messages = new ArrayList<>();
+		for (int i = 0; i < GlobalConstant.getMaxInFlightSends(); i++) {
+			messages.add(message("m" + i));
+		}
+		List<CompletableFuture<SendResult<String, KafkaMessage<?>>>> sent = service.publishBatch(TOPIC, messages,
+				KafkaMessage::getMessageId);
+		assertThat(service.getInFlightSends()).isEqualTo(GlobalConstant.getMaxInFlightSends());
+
+		CompletableFuture<SendResult<String, KafkaMessage<?>>> rejected = service.publishEventAsync(TOPIC, "k",
+				message("over"));
+		assertThat(rejected).failsWithin(Duration.ZERO).withThrowableThat()
+				.withCauseInstanceOf(PublishRejectedException.class);
+		assertThat(service.getInFlightSends()).isEqualTo(GlobalConstant.getMaxInFlightSends());
+
+		while (producer.completeNext()) {
+			// Acknowledge every pending send
+		}
+		assertThat(sent).allMatch(future -> future.isDone() && !future.isCompletedExceptionally());
+		assertThat(service.getInFlightSends()).isZero();
+	}
+
+	private static KafkaMessage<String> message(String id) {
+		return KafkaMessage.<String>builder()
+				.messageId(id)
+				.type("COMMENT")
+				.payload(id)
+				.build();
+	}
+}
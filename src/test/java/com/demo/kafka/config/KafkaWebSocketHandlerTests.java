@@ -0,0 +1,89 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.exception.KafkaMessageErrorHandler;
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.service.MessageDeduplicator;
+import com.demo.kafka.service.NotificationDigester;
+import com.demo.kafka.websocket.RecentHistory;
+import com.demo.kafka.websocket.SubscriptionRegistry;
+import com.demo.kafka.websocket.WebSocketFanout;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.listener.adapter.FilteringBatchMessageListenerAdapter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KafkaWebSocketHandlerTests {
+
+	private static final String TOPIC = "notifications";
+
+	private final KafkaWebSocketHandler handler = new KafkaWebSocketHandler(new WebSocketFanout(),
+			new SubscriptionRegistry(), new MessageDeduplicator(), new NotificationDigester(), new RecentHistory(),
+			null, null);
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void deadLettersTombstoneInFilteredBatch() {
+		ConsumerRecord<String, KafkaMessage<?>> expired = record(0, message("m0", LocalDateTime.now().minusMinutes(1)));
+		ConsumerRecord<String, KafkaMessage<?>> valid = record(1, message("m1", null));
+		ConsumerRecord<String, KafkaMessage<?>> tombstone = record(2, null);
+		ConsumerRecord<String, KafkaMessage<?>> next = record(3, message("m3", null));
+		List<ConsumerRecord<String, KafkaMessage<?>>> batch = List.of(expired, valid, tombstone, next);
+
+		FilteringBatchMessageListenerAdapter<String, KafkaMessage<?>> listener = new FilteringBatchMessageListenerAdapter<>(
+				records -> handler.listen(cast(records)), KafkaConfig::isExpired);
+		BatchListenerFailedException failure = catchThrowableOfType(BatchListenerFailedException.class,
+				() -> listener.onMessage(new ArrayList<>(batch), null, null));
+
+		assertThat(failure.getRecord()).isSameAs(tombstone);
+		assertThat(RetryTopics.destination(tombstone, failure)).isEqualTo(new TopicPartition(TOPIC + ".dlt", 0));
+
+		List<ConsumerRecord<?, ?>> recovered = new ArrayList<>();
+		KafkaMessageErrorHandler errorHandler = new KafkaMessageErrorHandler((record, e) -> recovered.add(record));
+		MessageListenerContainer container = mock(MessageListenerContainer.class);
+		when(container.getContainerProperties()).thenReturn(new ContainerProperties(TOPIC));
+		ConsumerRecords<String, KafkaMessage<?>> polled = new ConsumerRecords<>(Map.of(new TopicPartition(TOPIC, 0), batch));
+
+		Consumer<String, KafkaMessage<?>> consumer = mock(Consumer.class);
+
+		assertThatExceptionOfType(KafkaException.class).isThrownBy(() ->
+				errorHandler.handleBatchAndReturnRemaining(failure, polled, consumer, container, () -> { }));
+		assertThat(recovered).containsExactly(tombstone);
+		verify(consumer).seek(new TopicPartition(TOPIC, 0), next.offset());
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static List<ConsumerRecord<String, KafkaMessage<String>>> cast(List<ConsumerRecord<String, KafkaMessage<?>>> records) {
+		return (List) records;
+	}
+
+	private static ConsumerRecord<String, KafkaMessage<?>> record(long offset, KafkaMessage<?> value) {
+		return new ConsumerRecord<>(TOPIC, 0, offset, "k", value);
+	}
+
+	private static KafkaMessage<String> message(String id, LocalDateTime expirationTime) {
+		return KafkaMessage.<String>builder()
+				.messageId(id)
+				.type("COMMENT")
+				.expirationTime(expirationTime)
+				.payload(id)
+				.build();
+	}
+}
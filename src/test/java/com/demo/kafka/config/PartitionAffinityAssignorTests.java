@@ -0,0 +1,118 @@
+package com.demo.kafka.config;
+
+import com.demo.kafka.payload.PriorityLane;
+import com.demo.kafka.utils.GlobalConstant;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor.GroupSubscription;
+import org.apache.kafka.clients.consumer.ConsumerPartitionAssignor.Subscription;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionAffinityAssignorTests {
+
+	private static final String TOPIC = GlobalConstant.TOPIC_NAME;
+
+	@Test
+	void spreadsPartitionsOverNodesThenMembers() {
+		Map<String, Subscription> members = new HashMap<>();
+		members.put("a-1", subscription("a", TOPIC));
+		members.put("a-2", subscription("a", TOPIC));
+		members.put("b-1", subscription("b", TOPIC));
+		members.put("b-2", subscription("b", TOPIC));
+		members.put("c-1", subscription("c", TOPIC));
+
+		Map<String, List<Integer>> assigned = assign(members, TOPIC, 12);
+
+		assertThat(assigned).containsOnly(
+				Map.entry("a-1", List.of(0, 6)),
+				Map.entry("a-2", List.of(3, 9)),
+				Map.entry("b-1", List.of(1, 7)),
+				Map.entry("b-2", List.of(4, 10)),
+				Map.entry("c-1", List.of(2, 5, 8, 11)));
+	}
+
+	@Test
+	void groupsMembersWithoutNodeIdAsOneNode() {
+		Map<String, Subscription> members = new HashMap<>();
+		members.put("a-1", subscription("a", TOPIC));
+		members.put("unnamed-1", new Subscription(List.of(TOPIC), null));
+		members.put("unnamed-2", subscription(null, TOPIC));
+
+		Map<String, List<Integer>> assigned = assign(members, TOPIC, 6);
+
+		assertThat(assigned).containsOnly(
+				Map.entry("unnamed-1", List.of(0, 4)),
+				Map.entry("unnamed-2", List.of(2)),
+				Map.entry("a-1", List.of(1, 3, 5)));
+	}
+
+	@Test
+	void mapsPartitionsOfEveryLaneToTheSameNode() {
+		Map<Integer, String> expected = null;
+		int membersPerNode = 1;
+		for (String lane : PriorityLane.topics(TOPIC)) {
+			Map<String, Subscription> members = new HashMap<>();
+			Map<String, String> nodeOfMember = new HashMap<>();
+			for (String node : List.of("c", "a", "b")) {
+				for (int i = 0; i < membersPerNode; i++) {
+					String member = lane + "-" + node + "-" + i;
+					members.put(member, subscription(node, lane));
+					nodeOfMember.put(member, node);
+				}
+			}
+			Map<Integer, String> nodeOfPartition = new TreeMap<>();
+			assign(members, lane, 12).forEach((member, partitions) ->
+					partitions.forEach(partition -> nodeOfPartition.put(partition, nodeOfMember.get(member))));
+
+			assertThat(nodeOfPartition).hasSize(12);
+			if (expected != null) {
+				assertThat(nodeOfPartition).isEqualTo(expected);
+			}
+			expected = nodeOfPartition;
+			membersPerNode++;
+		}
+	}
+
+	private static Subscription subscription(String nodeId, String topic) {
+		PartitionAffinityAssignor assignor = new PartitionAffinityAssignor();
+		if (nodeId != null) {
+			assignor.configure(Map.of(PartitionAffinityAssignor.NODE_ID_CONFIG, nodeId));
+		}
+		ByteBuffer userData = assignor.subscriptionUserData(Set.of(topic));
+		return new Subscription(List.of(topic), userData);
+	}
+
+	/**
+	 * Returns the partitions of the topic assigned to each member, in ascending order.
+	 */
+	private static Map<String, List<Integer>> assign(Map<String, Subscription> members, String topic, int partitions) {
+		List<PartitionInfo> infos = new ArrayList<>();
+		for (int partition = 0; partition < partitions; partition++) {
+			infos.add(new PartitionInfo(topic, partition, null, null, null));
+		}
+		Cluster cluster = new Cluster("cluster", List.of(), infos, Set.of(), Set.of());
+		Map<String, List<Integer>> assigned = new HashMap<>();
+		new PartitionAffinityAssignor().assign(cluster, new GroupSubscription(members)).groupAssignment()
+				.forEach((member, assignment) -> {
+					List<Integer> owned = new ArrayList<>();
+					for (TopicPartition partition : assignment.partitions()) {
+						assertThat(partition.topic()).isEqualTo(topic);
+						owned.add(partition.partition());
+					}
+					owned.sort(Integer::compareTo);
+					assigned.put(member, owned);
+				});
+		return assigned;
+	}
+}
@@ -0,0 +1,43 @@
+package com.demo.kafka.config;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryTopicsTests {
+
+	@Test
+	void movesFailedRecordsUpTheTiersAndThenToTheDeadLetterTopic() {
+		ConsumerRecord<String, Object> record = new ConsumerRecord<>("notifications.high", 2, 10L, "k", "v");
+		RuntimeException failure = new IllegalStateException("boom");
+
+		for (int tier = 0; tier < RetryTopics.TIERS; tier++) {
+			TopicPartition destination = RetryTopics.destination(record, failure);
+			assertThat(destination).isEqualTo(new TopicPartition(RetryTopics.retryTopic("notifications.high", tier), 2));
+
+			Headers headers = RetryTopics.retryHeaders(record, failure);
+			record = new ConsumerRecord<>(destination.topic(), 2, 0L, "k", "v");
+			headers.forEach(record.headers()::add);
+			assertThat(RetryTopics.remainingDelay(record)).isBetween(1L, RetryTopics.delayMs(tier));
+		}
+
+		assertThat(RetryTopics.destination(record, failure))
+				.isEqualTo(new TopicPartition("notifications.high.dlt", 2));
+	}
+
+	@Test
+	void deadLettersPoisonPillsRightAway() {
+		ConsumerRecord<String, Object> record = new ConsumerRecord<>("notifications", 0, 10L, "k", null);
+		record.headers().add(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, new byte[]{1});
+		assertThat(RetryTopics.destination(record, new IllegalStateException())).isEqualTo(new TopicPartition("notifications.dlt", 0));
+
+		ConsumerRecord<String, Object> other = new ConsumerRecord<>("notifications", 0, 11L, "k", "v");
+		DeserializationException failure = new DeserializationException("bad", new byte[0], false, null);
+		assertThat(RetryTopics.destination(other, new RuntimeException(failure)).topic()).isEqualTo("notifications.dlt");
+	}
+}
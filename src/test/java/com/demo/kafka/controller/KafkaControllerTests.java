@@ -0,0 +1,131 @@
+package com.demo.kafka.controller;
+
+import com.demo.kafka.config.KafkaEventService;
+import com.demo.kafka.exception.KafkaExceptionHandler;
+import com.demo.kafka.exception.PublishRejectedException;
+import com.demo.kafka.payload.KafkaMessage;
+import com.demo.kafka.service.HotKeyDetector;
+import com.demo.kafka.service.KafkaService;
+import com.demo.kafka.utils.GlobalConstant;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class KafkaControllerTests {
+
+	private final KafkaEventService<?> eventService = mock(KafkaEventService.class);
+
+	private final MockMvc mockMvc = MockMvcBuilders
+			.standaloneSetup(new KafkaController(new KafkaService(eventService, new HotKeyDetector()),
+					null, null, null, null, null, null))
+			.setControllerAdvice(new KafkaExceptionHandler())
+			.build();
+
+	@Test
+	void rejectsBatchAboveLimit() throws Exception {
+		String body = "[" + "{\"messageId\": \"m\"},".repeat(GlobalConstant.getMaxBatchSize()) + "{\"messageId\": \"m\"}]";
+
+		mockMvc.perform(post("/kafka/send/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.message").value("Batch too large"));
+		verify(eventService, never()).publishEventAsync(anyString(), any(), any());
+	}
+
+	@Test
+	void reportsNullBatchItemByIndex() throws Exception {
+		acknowledgeAll();
+		String body = "[{\"messageId\": \"m0\"}, null, {\"messageId\": \"m2\"}]";
+
+		mockMvc.perform(post("/kafka/send/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.accepted").value(2))
+				.andExpect(jsonPath("$.data.failed").value(1))
+				.andExpect(jsonPath("$.data.results[0].index").value(0))
+				.andExpect(jsonPath("$.data.results[0].messageId").value("m0"))
+				.andExpect(jsonPath("$.data.results[1].index").value(1))
+				.andExpect(jsonPath("$.data.results[1].error").value("Missing message"))
+				.andExpect(jsonPath("$.data.results[2].index").value(2))
+				.andExpect(jsonPath("$.data.results[2].messageId").value("m2"));
+	}
+
+	@Test
+	void reportsUnparseableStreamLineByIndex() throws Exception {
+		acknowledgeAll();
+		String body = "{\"messageId\": \"m0\"}\n{not json\n\n{\"messageId\": \"m2\"}\n";
+
+		mockMvc.perform(post("/kafka/send/stream").contentType(MediaType.APPLICATION_NDJSON).content(body))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.accepted").value(2))
+				.andExpect(jsonPath("$.data.failed").value(1))
+				.andExpect(jsonPath("$.data.results[0].messageId").value("m0"))
+				.andExpect(jsonPath("$.data.results[1].index").value(1))
+				.andExpect(jsonPath("$.data.results[1].error", startsWith("Invalid message")))
+				.andExpect(jsonPath("$.data.results[2].index").value(2))
+				.andExpect(jsonPath("$.data.results[2].messageId").value("m2"));
+	}
+
+	@Test
+	void stopsStreamAtLimit() throws Exception {
+		acknowledgeAll();
+		int limit = GlobalConstant.getMaxStreamSize();
+		String body = "{\"messageId\": \"m\"}\n".repeat(limit + 5);
+
+		mockMvc.perform(post("/kafka/send/stream").contentType(MediaType.APPLICATION_NDJSON).content(body))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.accepted").value(limit))
+				.andExpect(jsonPath("$.data.failed").value(1))
+				.andExpect(jsonPath("$.data.results[" + limit + "].index").value(limit));
+		verify(eventService, times(limit)).publishEventAsync(anyString(), any(), any());
+	}
+
+	@Test
+	void answersRejectedPublishWithRetryAfter() throws Exception {
+		when(eventService.publishEventAsync(anyString(), any(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new PublishRejectedException("Too many messages in flight")));
+
+		MvcResult result = mockMvc.perform(post("/kafka/send").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"messageId\": \"m0\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, String.valueOf(GlobalConstant.getRetryAfterSeconds())))
+				.andExpect(jsonPath("$.errors[0]").value("Too many messages in flight"));
+	}
+
+	private void acknowledgeAll() {
+		when(eventService.publishEventAsync(anyString(), any(), any())).thenAnswer(invocation -> {
+			String topic = invocation.getArgument(0);
+			KafkaMessage<?> message = invocation.getArgument(2);
+			RecordMetadata metadata = new RecordMetadata(new TopicPartition(topic, 0), 0L, 0, 0L, 0, 0);
+			return CompletableFuture.completedFuture(new SendResult<>(
+					new ProducerRecord<>(topic, invocation.getArgument(1), message), metadata));
+		});
+	}
+}
@@ -0,0 +1,130 @@
+package com.demo.kafka.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Bookkeeping shared by the publisher and the clients of a load run.
+ * <p>
+ * Every message gets the ID {@code <runId>-<sequence>}, and the time it was due to be published is kept per
+ * sequence, so a client can compute the end-to-end latency of a notification from its ID alone. The due time is
+ * used rather than the actual send time so that a publisher falling behind shows up as latency instead of
+ * hiding it. Messages the application rejected are marked and not expected at the clients.
+ */
+final class DeliveryTracker {
+
+	private static final long REJECTED = -1L;
+	private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+	private final String runId = "load-" + UUID.randomUUID().toString().substring(0, 8);
+	private final AtomicLongArray dueAt;
+	private final AtomicLong accepted = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong publishErrors = new AtomicLong();
+	private final AtomicLong unknown = new AtomicLong();
+	private final LongAccumulator lastDelivery = new LongAccumulator(Math::max, 0L);
+	private final Histogram regularLatency = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+	private final Histogram slowLatency = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+	private volatile long startedAt;
+	private volatile long publishedAt;
+
+	DeliveryTracker(int capacity) {
+		this.dueAt = new AtomicLongArray(capacity);
+	}
+
+	String messageId(int sequence) {
+		return runId + "-" + sequence;
+	}
+
+	/**
+	 * Returns the sequence of a message ID of this run, or -1 for anything else, e.g. a message left in the
+	 * outbox by an earlier run.
+	 */
+	int sequenceOf(String messageId) {
+		if (messageId == null || !messageId.startsWith(runId) || messageId.length() <= runId.length() + 1) {
+			return -1;
+		}
+		try {
+			int sequence = Integer.parseInt(messageId, runId.length() + 1, messageId.length(), 10);
+			return sequence < dueAt.length() ? sequence : -1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	void started(long nanos) {
+		startedAt = nanos;
+	}
+
+	void published(long nanos) {
+		publishedAt = nanos;
+	}
+
+	/**
+	 * Records when a message was due, stored relative to the start so that 0 can mean "not published".
+	 */
+	void due(int sequence, long nanos) {
+		dueAt.set(sequence, nanos - startedAt + 1);
+	}
+
+	void accepted(int count) {
+		accepted.addAndGet(count);
+	}
+
+	void rejected(int sequence) {
+		dueAt.set(sequence, REJECTED);
+		rejected.incrementAndGet();
+	}
+
+	void publishFailed(int fromSequence, int count) {
+		for (int sequence = fromSequence; sequence < fromSequence + count; sequence++) {
+			dueAt.set(sequence, REJECTED);
+		}
+		publishErrors.addAndGet(count);
+	}
+
+	boolean isAccepted(int sequence) {
+		return dueAt.get(sequence) > 0;
+	}
+
+	long accepted() {
+		return accepted.get();
+	}
+
+	/**
+	 * Records the first delivery of a message to a client.
+	 */
+	void delivered(int sequence, boolean slow) {
+		long due = dueAt.get(sequence);
+		if (due <= 0) {
+			return;
+		}
+		long elapsed = System.nanoTime() - startedAt;
+		lastDelivery.accumulate(elapsed);
+		long micros = Math.min(HIGHEST_LATENCY_MICROS, Math.max(0L, TimeUnit.NANOSECONDS.toMicros(elapsed - due + 1)));
+		(slow ? slowLatency : regularLatency).recordValue(micros);
+	}
+
+	void unknown() {
+		unknown.incrementAndGet();
+	}
+
+	LoadReport report(LoadSettings settings, List<LoadClient> clients) {
+		long accepted = this.accepted.get();
+		LoadReport.ClientStats regular = LoadReport.ClientStats.of(clients.stream().filter(c -> !c.isSlow()).toList(),
+				this, regularLatency);
+		LoadReport.ClientStats slow = LoadReport.ClientStats.of(clients.stream().filter(LoadClient::isSlow).toList(),
+				this, slowLatency);
+		double publishSeconds = (publishedAt - startedAt) / 1e9;
+		double deliverySeconds = Math.max(1L, lastDelivery.get()) / 1e9;
+		return new LoadReport(settings, accepted, rejected.get(), publishErrors.get(), unknown.get(),
+				accepted / publishSeconds, (regular.delivered() + slow.delivered()) / deliverySeconds, regular, slow);
+	}
+}
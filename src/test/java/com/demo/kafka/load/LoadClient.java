@@ -0,0 +1,161 @@
+package com.demo.kafka.load;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simulated {@code /ws/kafka} client that receives every notification and records which messages arrived.
+ * <p>
+ * A slow client asks for its next frame only after {@link LoadSettings#slowClientDelay()}, so its socket
+ * backs up and the server's per-session queue has to absorb, drop or coalesce frames. Frames are scanned for
+ * {@code messageId} fields with a streaming parser, which keeps thousands of clients cheap to run alongside the
+ * application.
+ */
+final class LoadClient implements WebSocket.Listener {
+
+	private static final JsonFactory JSON = new JsonFactory();
+	private static final String MESSAGE_ID = "messageId";
+
+	private final DeliveryTracker tracker;
+	private final boolean slow;
+	private final long delayMillis;
+	private final ScheduledExecutorService scheduler;
+	private final StringBuilder frame = new StringBuilder();
+	private final BitSet received = new BitSet();
+	private volatile int unique;
+	private volatile long duplicates;
+	private volatile boolean closed;
+	private WebSocket socket;
+
+	private LoadClient(DeliveryTracker tracker, boolean slow, long delayMillis, ScheduledExecutorService scheduler) {
+		this.tracker = tracker;
+		this.slow = slow;
+		this.delayMillis = delayMillis;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Opens the configured number of clients, the first {@link LoadSettings#slowClients()} of them slow.
+	 */
+	static List<LoadClient> connectAll(HttpClient http, URI uri, LoadSettings settings, DeliveryTracker tracker,
+									   ScheduledExecutorService scheduler) {
+		List<LoadClient> clients = new ArrayList<>(settings.clients());
+		List<CompletableFuture<WebSocket>> handshakes = new ArrayList<>(settings.clients());
+		for (int i = 0; i < settings.clients(); i++) {
+			LoadClient client = new LoadClient(tracker, i < settings.slowClients(),
+					settings.slowClientDelay().toMillis(), scheduler);
+			clients.add(client);
+			handshakes.add(http.newWebSocketBuilder().buildAsync(uri, client));
+		}
+		CompletableFuture.allOf(handshakes.toArray(CompletableFuture[]::new)).join();
+		return clients;
+	}
+
+	@Override
+	public void onOpen(WebSocket webSocket) {
+		socket = webSocket;
+		webSocket.request(1);
+	}
+
+	@Override
+	public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+		frame.append(data);
+		if (last) {
+			scan(frame.toString());
+			frame.setLength(0);
+		}
+		if (slow && last) {
+			scheduler.schedule(() -> webSocket.request(1), delayMillis, TimeUnit.MILLISECONDS);
+		} else {
+			webSocket.request(1);
+		}
+		return null;
+	}
+
+	@Override
+	public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+		closed = true;
+		return null;
+	}
+
+	@Override
+	public void onError(WebSocket webSocket, Throwable error) {
+		closed = true;
+	}
+
+	boolean isSlow() {
+		return slow;
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	int unique() {
+		return unique;
+	}
+
+	long duplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * Returns how many of the accepted messages this client received.
+	 */
+	synchronized long deliveredAccepted() {
+		long delivered = 0;
+		for (int sequence = received.nextSetBit(0); sequence >= 0; sequence = received.nextSetBit(sequence + 1)) {
+			delivered += tracker.isAccepted(sequence) ? 1 : 0;
+		}
+		return delivered;
+	}
+
+	void close() {
+		if (socket != null && !closed) {
+			socket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+		}
+	}
+
+	/**
+	 * Records the messages of a frame, which is either a single notification, an array of them or a control
+	 * reply without a {@code messageId}.
+	 */
+	private synchronized void scan(String text) {
+		try (JsonParser parser = JSON.createParser(text)) {
+			for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+				if (token == JsonToken.FIELD_NAME && MESSAGE_ID.equals(parser.currentName())
+						&& parser.nextToken() == JsonToken.VALUE_STRING) {
+					record(parser.getText());
+				}
+			}
+		} catch (IOException e) {
+			tracker.unknown();
+		}
+	}
+
+	private void record(String messageId) {
+		int sequence = tracker.sequenceOf(messageId);
+		if (sequence < 0) {
+			tracker.unknown();
+		} else if (received.get(sequence)) {
+			duplicates++;
+		} else {
+			received.set(sequence);
+			unique++;
+			tracker.delivered(sequence, slow);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.demo.kafka.load;
+
+import com.demo.kafka.payload.KafkaMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes messages through the REST endpoints at a fixed rate.
+ * <p>
+ * Requests are paced against a schedule computed from the start of the run rather than from the previous
+ * response, with at most {@link LoadSettings#maxInFlight()} outstanding, so a slow application makes the
+ * publisher fall behind its schedule, which the tracker counts as latency.
+ */
+final class LoadPublisher {
+
+	private final HttpClient http;
+	private final URI uri;
+	private final LoadSettings settings;
+	private final DeliveryTracker tracker;
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+	private final String payload;
+	private final Map<String, String> headers = new LinkedHashMap<>();
+
+	LoadPublisher(HttpClient http, URI baseUri, LoadSettings settings, DeliveryTracker tracker) {
+		this.http = http;
+		this.uri = baseUri.resolve(settings.endpoint().path);
+		this.settings = settings;
+		this.tracker = tracker;
+		this.payload = "x".repeat(settings.payloadSize());
+		for (int i = 0; i < settings.headerCount(); i++) {
+			headers.put("h" + i, "value-" + i);
+		}
+	}
+
+	/**
+	 * Publishes {@link LoadSettings#totalMessages()} messages and waits for the last response.
+	 */
+	void run() throws InterruptedException, JsonProcessingException {
+		Semaphore inFlight = new Semaphore(settings.maxInFlight());
+		int perRequest = settings.messagesPerRequest();
+		long periodNanos = 1_000_000_000L * perRequest / settings.rate();
+		long start = System.nanoTime();
+		tracker.started(start);
+		for (int first = 0, request = 0; first < settings.totalMessages(); first += perRequest, request++) {
+			long due = start + request * periodNanos;
+			for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+				LockSupport.parkNanos(wait);
+			}
+			inFlight.acquire();
+			int count = Math.min(perRequest, settings.totalMessages() - first);
+			List<KafkaMessage<String>> messages = new ArrayList<>(count);
+			for (int sequence = first; sequence < first + count; sequence++) {
+				messages.add(message(sequence));
+				tracker.due(sequence, due);
+			}
+			int from = first;
+			http.sendAsync(request(messages), HttpResponse.BodyHandlers.ofString())
+					.whenComplete((response, error) -> {
+						inFlight.release();
+						if (error != null) {
+							tracker.publishFailed(from, count);
+						} else {
+							onResponse(response, from, count);
+						}
+					});
+		}
+		inFlight.acquire(settings.maxInFlight());
+		tracker.published(System.nanoTime());
+	}
+
+	private KafkaMessage<String> message(int sequence) {
+		return KafkaMessage.<String>builder()
+				.messageId(tracker.messageId(sequence))
+				.correlationId("load-" + (sequence % 1024))
+				.type("LOAD")
+				.operation("NOTIFY")
+				.source("load-generator")
+				.priority(settings.priorities().get(sequence % settings.priorities().size()))
+				.headers(headers)
+				.payload(payload)
+				.build();
+	}
+
+	private HttpRequest request(List<KafkaMessage<String>> messages) throws JsonProcessingException {
+		String body;
+		if (settings.endpoint() == LoadSettings.Endpoint.SEND) {
+			body = objectMapper.writeValueAsString(messages.get(0));
+		} else if (settings.endpoint() == LoadSettings.Endpoint.BATCH) {
+			body = objectMapper.writeValueAsString(messages);
+		} else {
+			StringBuilder lines = new StringBuilder();
+			for (KafkaMessage<String> message : messages) {
+				lines.append(objectMapper.writeValueAsString(message)).append('\n');
+			}
+			body = lines.toString();
+		}
+		return HttpRequest.newBuilder(uri)
+				.header("Content-Type", settings.endpoint().contentType)
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+
+	/**
+	 * Counts the accepted messages of a response; the bulk endpoints report a receipt per message.
+	 */
+	private void onResponse(HttpResponse<String> response, int from, int count) {
+		if (response.statusCode() / 100 != 2) {
+			for (int sequence = from; sequence < from + count; sequence++) {
+				tracker.rejected(sequence);
+			}
+			return;
+		}
+		if (settings.endpoint() == LoadSettings.Endpoint.SEND) {
+			tracker.accepted(1);
+			return;
+		}
+		try {
+			JsonNode results = objectMapper.readTree(response.body()).path("data").path("results");
+			int accepted = 0;
+			for (int i = 0; i < count; i++) {
+				if (results.path(i).hasNonNull("error")) {
+					tracker.rejected(from + i);
+				} else {
+					accepted++;
+				}
+			}
+			tracker.accepted(accepted);
+		} catch (JsonProcessingException e) {
+			tracker.publishFailed(from, count);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.demo.kafka.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+
+/**
+ * Outcome of a load run; written to {@code target/load-report.json} so that runs can be compared.
+ *
+ * @param settings       the run settings
+ * @param accepted       messages the application accepted
+ * @param rejected       messages the application rejected, e.g. when saturated
+ * @param publishErrors  messages whose request failed
+ * @param unknown        frames that did not belong to this run
+ * @param publishRate    accepted messages per second while publishing
+ * @param deliveryRate   first deliveries per second, over all clients, until the last delivery
+ * @param regularClients statistics of the clients reading as fast as they can
+ * @param slowClients    statistics of the clients pausing after each frame
+ */
+record LoadReport(LoadSettings settings, long accepted, long rejected, long publishErrors, long unknown,
+				  double publishRate, double deliveryRate, ClientStats regularClients, ClientStats slowClients) {
+
+	/**
+	 * Delivery statistics of a group of clients.
+	 *
+	 * @param clients    number of clients
+	 * @param closed     clients closed by the server before the end of the run
+	 * @param expected   deliveries expected, i.e. accepted messages times clients
+	 * @param delivered  first deliveries of accepted messages
+	 * @param duplicates deliveries of a message a client had already received
+	 * @param lossRatio  share of the expected deliveries that never arrived
+	 * @param latencyMs  end-to-end latency percentiles in milliseconds
+	 */
+	record ClientStats(int clients, int closed, long expected, long delivered, long duplicates, double lossRatio,
+					   Latency latencyMs) {
+
+		static ClientStats of(List<LoadClient> clients, DeliveryTracker tracker, Histogram latency) {
+			long expected = tracker.accepted() * clients.size();
+			long delivered = 0;
+			long duplicates = 0;
+			int closed = 0;
+			for (LoadClient client : clients) {
+				delivered += client.deliveredAccepted();
+				duplicates += client.duplicates();
+				closed += client.isClosed() ? 1 : 0;
+			}
+			double lossRatio = expected == 0 ? 0.0 : (double) (expected - delivered) / expected;
+			return new ClientStats(clients.size(), closed, expected, delivered, duplicates, lossRatio, Latency.of(latency));
+		}
+	}
+
+	/**
+	 * Latency percentiles in milliseconds.
+	 */
+	record Latency(double p50, double p90, double p99, double p999, double max) {
+
+		static Latency of(Histogram micros) {
+			return new Latency(micros.getValueAtPercentile(50) / 1e3, micros.getValueAtPercentile(90) / 1e3,
+					micros.getValueAtPercentile(99) / 1e3, micros.getValueAtPercentile(99.9) / 1e3,
+					micros.getMaxValue() / 1e3);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.demo.kafka.load;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Shape of a load run, read from {@code load.*} system properties so that runs can be tuned from the command
+ * line, e.g. {@code mvn -Pload test -Dload.rate=5000 -Dload.clients=2000 -Dload.durationSeconds=3600}.
+ *
+ * @param rate              messages published per second
+ * @param duration          how long to publish for
+ * @param endpoint          the publish endpoint to drive
+ * @param batchSize         messages per request for the bulk endpoints
+ * @param maxInFlight       maximum concurrent publish requests
+ * @param payloadSize       payload length in characters
+ * @param headerCount       number of headers per message
+ * @param priorities        priorities assigned to messages in turn
+ * @param clients           number of WebSocket clients
+ * @param slowClientRatio   share of the clients reading slowly
+ * @param slowClientDelay   pause of a slow client after each frame
+ * @param drainTimeout      how long to wait for deliveries after publishing stopped
+ * @param maxLossRatio      share of the accepted messages regular clients may miss before the run fails
+ */
+record LoadSettings(int rate, Duration duration, Endpoint endpoint, int batchSize, int maxInFlight, int payloadSize,
+					int headerCount, List<String> priorities, int clients, double slowClientRatio,
+					Duration slowClientDelay, Duration drainTimeout, double maxLossRatio) {
+
+	/**
+	 * Publish endpoints of {@code KafkaController}.
+	 */
+	enum Endpoint {
+		SEND("/kafka/send", "application/json"),
+		BATCH("/kafka/send/batch", "application/json"),
+		STREAM("/kafka/send/stream", "application/x-ndjson");
+
+		final String path;
+		final String contentType;
+
+		Endpoint(String path, String contentType) {
+			this.path = path;
+			this.contentType = contentType;
+		}
+	}
+
+	static LoadSettings fromSystemProperties() {
+		return new LoadSettings(
+				Integer.getInteger("load.rate", 200),
+				Duration.ofSeconds(Long.getLong("load.durationSeconds", 30L)),
+				Endpoint.valueOf(System.getProperty("load.endpoint", "BATCH").toUpperCase()),
+				Integer.getInteger("load.batchSize", 50),
+				Integer.getInteger("load.maxInFlight", 64),
+				Integer.getInteger("load.payloadSize", 256),
+				Integer.getInteger("load.headerCount", 2),
+				List.of(System.getProperty("load.priorities", "HIGH,MEDIUM,MEDIUM,LOW").split(",")),
+				Integer.getInteger("load.clients", 50),
+				Double.parseDouble(System.getProperty("load.slowClientRatio", "0.1")),
+				Duration.ofMillis(Long.getLong("load.slowClientDelayMs", 50L)),
+				Duration.ofSeconds(Long.getLong("load.drainTimeoutSeconds", 60L)),
+				Double.parseDouble(System.getProperty("load.maxLossRatio", "0")));
+	}
+
+	/**
+	 * Returns the number of messages sent per request.
+	 */
+	int messagesPerRequest() {
+		return endpoint == Endpoint.SEND ? 1 : batchSize;
+	}
+
+	/**
+	 * Returns the number of messages the run publishes.
+	 */
+	int totalMessages() {
+		return (int) Math.min(Integer.MAX_VALUE, rate * duration.toSeconds());
+	}
+
+	/**
+	 * Returns the number of clients reading slowly.
+	 */
+	int slowClients() {
+		return (int) Math.round(clients * slowClientRatio);
+	}
+}
@@ -0,0 +1,90 @@
+package com.demo.kafka.load;
+
+import com.demo.kafka.utils.GlobalConstant;
+import com.demo.kafka.websocket.WebSocketFanout;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the whole publish, consume and WebSocket path against an embedded broker and reports throughput,
+ * end-to-end latency percentiles, loss and duplication. Tagged {@code load}, so it only runs with
+ * {@code mvn -Pload test}; see {@link LoadSettings} for the knobs. The broker listens on the port of
+ * {@link GlobalConstant#getBootstrapServer()}, which must therefore be free.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EmbeddedKafka(kraft = false, ports = 9092, partitions = 3)
+class NotificationLoadTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private WebSocketFanout fanout;
+
+	@Autowired
+	private KafkaListenerEndpointRegistry listenerRegistry;
+
+	@Test
+	void deliversAcceptedMessagesToEveryClient() throws Exception {
+		LoadSettings settings = LoadSettings.fromSystemProperties();
+		DeliveryTracker tracker = new DeliveryTracker(settings.totalMessages());
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		HttpClient http = HttpClient.newHttpClient();
+		for (String listenerId : List.of(GlobalConstant.HIGH_PRIORITY_LISTENER_ID,
+				GlobalConstant.MEDIUM_PRIORITY_LISTENER_ID, GlobalConstant.LOW_PRIORITY_LISTENER_ID)) {
+			ContainerTestUtils.waitForAssignment(listenerRegistry.getListenerContainer(listenerId),
+					GlobalConstant.getTopicPartitions());
+		}
+
+		List<LoadClient> clients = LoadClient.connectAll(http, URI.create("ws://localhost:" + port + "/ws/kafka"),
+				settings, tracker, scheduler);
+		await(() -> fanout.size() >= settings.clients(), Duration.ofSeconds(30));
+		new LoadPublisher(http, URI.create("http://localhost:" + port), settings, tracker).run();
+		List<LoadClient> regular = clients.stream().filter(client -> !client.isSlow()).toList();
+		await(() -> regular.stream().allMatch(client -> client.unique() >= tracker.accepted()), settings.drainTimeout());
+
+		LoadReport report = tracker.report(settings, clients);
+		clients.forEach(LoadClient::close);
+		scheduler.shutdownNow();
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+				.disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS);
+		Path file = Files.createDirectories(Path.of("target")).resolve("load-report.json");
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+		log.info("Load report written to {}: {}", file, report);
+
+		assertThat(report.publishErrors()).isZero();
+		assertThat(report.regularClients().lossRatio()).isLessThanOrEqualTo(settings.maxLossRatio());
+		assertThat(report.regularClients().duplicates() + report.slowClients().duplicates()).isZero();
+	}
+
+	private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+			Thread.sleep(100);
+		}
+	}
+}
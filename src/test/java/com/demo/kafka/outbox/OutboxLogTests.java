@@ -0,0 +1,94 @@
+package com.demo.kafka.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OutboxLogTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void replaysUncommittedRecordsAfterReopen() throws Exception {
+		try (OutboxLog log = new OutboxLog(directory, 4096)) {
+			log.append("t", "k1", bytes("a"));
+			log.append("t", null, bytes("b"));
+			log.append("t", "k3", bytes("c"));
+			log.commit(log.poll(1));
+		}
+		try (OutboxLog log = new OutboxLog(directory, 4096)) {
+			List<OutboxLog.Entry> entries = log.poll(10);
+			assertThat(log.size()).isEqualTo(2);
+			assertThat(entries).extracting(OutboxLog.Entry::key).containsExactly(null, "k3");
+			assertThat(entries).extracting(entry -> new String(entry.value(), StandardCharsets.UTF_8))
+					.containsExactly("b", "c");
+		}
+	}
+
+	@Test
+	void rollsSegmentsAndDeletesForwardedOnes() throws Exception {
+		try (OutboxLog log = new OutboxLog(directory, 128)) {
+			for (int i = 0; i < 10; i++) {
+				log.append("topic", "key", new byte[40]);
+			}
+			assertThat(segmentCount()).isEqualTo(5);
+			log.commit(log.poll(9));
+			assertThat(segmentCount()).isEqualTo(1);
+			assertThat(log.poll(10)).hasSize(1);
+		}
+	}
+
+	@Test
+	void discardsTornRecordAtTheTail() throws Exception {
+		try (OutboxLog log = new OutboxLog(directory, 4096)) {
+			log.append("t", "k", bytes("complete"));
+			log.append("t", "k", bytes("torn"));
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			Path segment = files.filter(file -> file.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+			try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+				file.seek(30);
+				file.write(0x7f);
+			}
+		}
+		try (OutboxLog log = new OutboxLog(directory, 4096)) {
+			assertThat(log.poll(10)).hasSize(1);
+			log.append("t", "k", bytes("after"));
+			assertThat(log.poll(10)).extracting(entry -> new String(entry.value(), StandardCharsets.UTF_8))
+					.containsExactly("complete", "after");
+		}
+	}
+
+	@Test
+	void refusesDirectoryHeldByAnotherLog() throws Exception {
+		try (OutboxLog log = new OutboxLog(directory, 4096)) {
+			assertThatThrownBy(() -> new OutboxLog(directory, 4096))
+					.isInstanceOf(IOException.class)
+					.hasMessageContaining("in use");
+		}
+		try (OutboxLog log = new OutboxLog(directory, 4096)) {
+			assertThat(log.size()).isZero();
+		}
+	}
+
+	private long segmentCount() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,75 @@
+package com.demo.kafka.payload;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageDeserializerTests {
+
+	private static final String JSON = """
+			{"messageId":"m1","type":"ALERT","priority":"HIGH","success":true,
+			 "timestamp":"2026-01-02T03:04:05","headers":{"tenant":"acme"},
+			 "payload":%s,"unknown":{"a":[1,2]},"messageLog":"log"}
+			""";
+
+	@Test
+	void lazyEnvelopeMatchesEagerBinding() {
+		for (String payload : new String[]{"\"caf\\u00e9 \\\"quoted\\\"\"", "{\"n\":[1,{\"x\":\"y\"}]}", "42", "null"}) {
+			byte[] data = JSON.formatted(payload).getBytes(StandardCharsets.UTF_8);
+
+			KafkaMessage<Object> eager = deserializer(false).deserialize("t", data);
+			KafkaMessage<Object> lazy = deserializer(true).deserialize("t", data);
+
+			assertThat(lazy).isInstanceOf(LazyKafkaMessage.class);
+			assertThat(((LazyKafkaMessage<Object>) lazy).isPayloadBound()).isFalse();
+			assertThat(lazy.getHeaders()).isEqualTo(Map.of("tenant", "acme"));
+			assertThat(lazy).isEqualTo(eager);
+			assertThat(lazy.getRawValue()).isSameAs(data);
+		}
+	}
+
+	@Test
+	void detectsBinaryFormatPerRecord() {
+		KafkaMessage<Object> message = KafkaMessage.builder()
+				.messageId("m1")
+				.type("ALERT")
+				.timestamp(LocalDateTime.of(2026, 1, 2, 3, 4, 5))
+				.headers(Map.of("tenant", "acme"))
+				.payload("hello")
+				.build();
+		MessageSerializer<Object> serializer = new MessageSerializer<>();
+		serializer.configure(Map.of(MessageSerializer.FORMAT_CONFIG + ".binary", "SMILE"), false);
+
+		byte[] json = serializer.serialize("json", message);
+		byte[] smile = serializer.serialize("binary", message);
+
+		assertThat(MessageFormat.detect(json)).isEqualTo(MessageFormat.JSON);
+		assertThat(MessageFormat.detect(smile)).isEqualTo(MessageFormat.SMILE);
+		assertThat(smile.length).isLessThan(json.length);
+		assertThat(deserializer(true).deserialize("t", smile)).isEqualTo(message);
+		assertThat(deserializer(true).deserialize("t", json)).isEqualTo(message);
+	}
+
+	@Test
+	void rejectsMalformedRecordsAndForwardsRawJson() {
+		byte[] malformed = "{\"messageId\":".getBytes(StandardCharsets.UTF_8);
+		assertThatThrownBy(() -> deserializer(false).deserialize("t", malformed))
+				.isInstanceOf(SerializationException.class);
+
+		byte[] data = JSON.formatted("\"hello\"").getBytes(StandardCharsets.UTF_8);
+		KafkaMessage<Object> message = deserializer(true).deserialize("t", data);
+		assertThat(new MessageSerializer<>().serialize("t.retry-1000", message)).isSameAs(data);
+	}
+
+	private static MessageDeserializer<Object> deserializer(boolean lazy) {
+		MessageDeserializer<Object> deserializer = new MessageDeserializer<>();
+		deserializer.configure(Map.of(MessageDeserializer.LAZY_ENVELOPE_CONFIG, lazy), false);
+		return deserializer;
+	}
+}
@@ -0,0 +1,32 @@
+package com.demo.kafka.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotKeyDetectorTests {
+
+	@Test
+	void reportsKeysAboveShareThreshold() {
+		HotKeyDetector detector = new HotKeyDetector(4, 1, 0.2);
+		for (int i = 0; i < 1000; i++) {
+			detector.record(i % 2 == 0 ? "hot" : "cold-" + i);
+		}
+		detector.evaluate();
+
+		assertThat(detector.getHotKeys()).containsOnlyKeys("hot");
+		assertThat(detector.getHotKeys().get("hot")).isGreaterThanOrEqualTo(0.5);
+	}
+
+	@Test
+	void startsOverAfterEachWindow() {
+		HotKeyDetector detector = new HotKeyDetector(4, 1, 0.2);
+		for (int i = 0; i < 200; i++) {
+			detector.record("hot");
+		}
+		detector.evaluate();
+		detector.evaluate();
+
+		assertThat(detector.getHotKeys()).isEmpty();
+	}
+}
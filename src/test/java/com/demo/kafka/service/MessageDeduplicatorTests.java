@@ -0,0 +1,37 @@
+package com.demo.kafka.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageDeduplicatorTests {
+
+	@Test
+	void detectsDuplicatesWithinWindow() {
+		MessageDeduplicator deduplicator = new MessageDeduplicator(3, 16);
+		assertThat(deduplicator.firstSeen("a")).isTrue();
+		assertThat(deduplicator.firstSeen("a")).isFalse();
+		deduplicator.rotate();
+		assertThat(deduplicator.firstSeen("a")).isFalse();
+		assertThat(deduplicator.getStats()).containsEntry("duplicates", 2L).containsEntry("memoryBytes", 384L);
+	}
+
+	@Test
+	void forgetsIdsOnceTheirGenerationRotatesOut() {
+		MessageDeduplicator deduplicator = new MessageDeduplicator(2, 16);
+		deduplicator.firstSeen("a");
+		deduplicator.rotate();
+		deduplicator.rotate();
+		assertThat(deduplicator.firstSeen("a")).isTrue();
+	}
+
+	@Test
+	void rotatesEarlyWhenGenerationFills() {
+		MessageDeduplicator deduplicator = new MessageDeduplicator(2, 16);
+		for (int i = 0; i < 12; i++) {
+			assertThat(deduplicator.firstSeen("id-" + i)).isTrue();
+		}
+		assertThat(deduplicator.getStats()).containsEntry("rotations", 1L);
+		assertThat(deduplicator.firstSeen("id-0")).isFalse();
+	}
+}
@@ -0,0 +1,97 @@
+package com.demo.kafka.service;
+
+import com.demo.kafka.payload.KafkaMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationDigesterTests {
+
+	private static final List<NotificationDigester.GroupBy> KEY_AND_TYPE =
+			List.of(NotificationDigester.GroupBy.KEY, NotificationDigester.GroupBy.TYPE);
+
+	@Test
+	void collapsesBurstIntoOneDigest() {
+		NotificationDigester digester = new NotificationDigester(true, KEY_AND_TYPE, DigestWindow.TUMBLING, 1_000, 16);
+		assertThat(digester.admit(message("m0", "alice", "MEDIUM"), 10_000)).isTrue();
+		for (int i = 1; i <= 37; i++) {
+			assertThat(digester.admit(message("m" + i, "alice", "MEDIUM"), 10_000 + i)).isFalse();
+		}
+		assertThat(digester.admit(message("b0", "bob", "MEDIUM"), 10_100)).isTrue();
+		assertThat(digester.admit(message("h0", "alice", "HIGH"), 10_200)).isTrue();
+
+		assertThat(digester.closeWindows(10_999)).isEmpty();
+		List<KafkaMessage<String>> digests = digester.closeWindows(11_000);
+
+		assertThat(digests).singleElement().satisfies(digest -> {
+			assertThat(digest.getOperation()).isEqualTo(NotificationDigester.DIGEST_OPERATION);
+			assertThat(digest.getMessageLog()).isEqualTo("37 new COMMENT notifications");
+			assertThat(digest.getPayload()).isEqualTo("m37");
+			assertThat(digest.getHeaders()).containsEntry(NotificationDigester.COUNT_HEADER, "37")
+					.containsEntry(NotificationDigester.WINDOW_START_HEADER, "10000")
+					.containsEntry(NotificationDigester.WINDOW_END_HEADER, "11000");
+		});
+		assertThat(digester.admit(message("m38", "alice", "MEDIUM"), 11_001)).isTrue();
+	}
+
+	@Test
+	void extendsSessionWindowWhileActive() {
+		NotificationDigester digester = new NotificationDigester(true, KEY_AND_TYPE, DigestWindow.SESSION, 1_000, 16);
+		digester.admit(message("m0", "alice", "LOW"), 0);
+		digester.admit(message("m1", "alice", "LOW"), 900);
+		digester.admit(message("m2", "alice", "LOW"), 1_800);
+
+		assertThat(digester.closeWindows(2_000)).isEmpty();
+		assertThat(digester.closeWindows(2_800)).singleElement()
+				.satisfies(digest -> assertThat(digest.getHeaders()).containsEntry(NotificationDigester.COUNT_HEADER, "2"));
+	}
+
+	@Test
+	void restoresCheckpointedWindows() {
+		NotificationDigester digester = new NotificationDigester(true, KEY_AND_TYPE, DigestWindow.TUMBLING, 1_000, 16);
+		long now = System.currentTimeMillis();
+		digester.admit(message("m0", "alice", "MEDIUM"), now);
+		digester.admit(message("m1", "alice", "MEDIUM"), now);
+		Map<String, NotificationDigester.WindowState> checkpoints = digester.takeCheckpoints();
+		assertThat(checkpoints).hasSize(1);
+		assertThat(digester.takeCheckpoints()).isEmpty();
+
+		NotificationDigester restarted = new NotificationDigester(true, KEY_AND_TYPE, DigestWindow.TUMBLING, 1_000, 16);
+		checkpoints.forEach(restarted::restore);
+
+		assertThat(restarted.admit(message("m2", "alice", "MEDIUM"), now)).isFalse();
+		assertThat(restarted.closeWindows(now + 1_000)).singleElement()
+				.satisfies(digest -> assertThat(digest.getHeaders()).containsEntry(NotificationDigester.COUNT_HEADER, "2"));
+		assertThat(restarted.takeCheckpoints()).containsOnlyKeys(checkpoints.keySet()).containsValue(null);
+	}
+
+	@Test
+	void keepsCollidingWindowsReachableAfterRemoval() {
+		DigestWindowStore store = new DigestWindowStore(8);
+		int first = store.open(1, 0, 1);
+		store.open(9, 0, 1);
+		store.open(17, 0, 1);
+		store.open(2, 0, 1);
+
+		store.remove(first);
+
+		assertThat(store.find(1)).isEqualTo(-1);
+		assertThat(store.find(9)).isNotNegative();
+		assertThat(store.find(17)).isNotNegative();
+		assertThat(store.find(2)).isNotNegative();
+		assertThat(store.size()).isEqualTo(3);
+	}
+
+	private static KafkaMessage<String> message(String id, String userId, String priority) {
+		return KafkaMessage.<String>builder()
+				.messageId(id)
+				.type("COMMENT")
+				.priority(priority)
+				.headers(Map.of(MessageKeyStrategy.USER_HEADER, userId))
+				.payload(id)
+				.build();
+	}
+}
@@ -0,0 +1,21 @@
+package com.demo.kafka.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogThrottleTests {
+
+	@Test
+	void letsOneLinePerIntervalThroughAndCountsTheRest() throws InterruptedException {
+		LogThrottle throttle = new LogThrottle(1_000L);
+
+		assertThat(throttle.tryAcquire()).isZero();
+		assertThat(throttle.tryAcquire()).isEqualTo(-1L);
+		assertThat(throttle.tryAcquire()).isEqualTo(-1L);
+
+		Thread.sleep(1_100L);
+		assertThat(throttle.tryAcquire()).isEqualTo(2L);
+		assertThat(throttle.tryAcquire()).isEqualTo(-1L);
+	}
+}
@@ -0,0 +1,49 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.payload.PriorityLane;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class DeliveryFormatTests {
+
+	@Test
+	void projectionKeepsSelectedFieldsAndMessageId() {
+		DeliveryFormat format = new DeliveryFormat(List.of("type", "headers.tenant"), false);
+
+		OutboundFrame frame = format.apply(notification(
+				"{\"messageId\":\"m1\",\"type\":\"ALERT\",\"messageLog\":\"log\",\"headers\":{\"tenant\":\"acme\",\"region\":\"eu\"}}"));
+
+		assertThat(frame.payload()).isEqualTo("{\"type\":\"ALERT\",\"headers\":{\"tenant\":\"acme\"},\"messageId\":\"m1\"}");
+	}
+
+	@Test
+	void deltaSendsOnlyChangedFieldsPerCorrelationId() {
+		DeliveryFormat format = new DeliveryFormat(List.of(), true);
+
+		String first = format.apply(notification("{\"messageId\":\"m1\",\"correlationId\":\"c\",\"type\":\"T\",\"payload\":\"a\"}")).payload();
+		String second = format.apply(notification("{\"messageId\":\"m2\",\"correlationId\":\"c\",\"type\":\"T\",\"payload\":\"b\"}")).payload();
+		String third = format.apply(notification("{\"messageId\":\"m3\",\"correlationId\":\"c\",\"payload\":\"b\"}")).payload();
+
+		assertThat(first).isEqualTo("{\"messageId\":\"m1\",\"correlationId\":\"c\",\"type\":\"T\",\"payload\":\"a\"}");
+		assertThat(second).isEqualTo("{\"_delta\":true,\"messageId\":\"m2\",\"correlationId\":\"c\",\"payload\":\"b\"}");
+		assertThat(third).isEqualTo("{\"_delta\":true,\"messageId\":\"m3\",\"correlationId\":\"c\",\"type\":null}");
+	}
+
+	@Test
+	void controlFramesAndUnknownFields() {
+		DeliveryFormat format = new DeliveryFormat(List.of("payload"), true);
+		OutboundFrame reply = OutboundFrame.of("{\"action\":\"subscribed\"}", null);
+
+		assertThat(format.apply(reply)).isSameAs(reply);
+		assertThatIllegalArgumentException().isThrownBy(() -> new DeliveryFormat(List.of("rawValue"), false));
+	}
+
+	private static OutboundFrame notification(String json) {
+		return OutboundFrame.notification(json.getBytes(StandardCharsets.UTF_8), null, PriorityLane.MEDIUM, 0L);
+	}
+}
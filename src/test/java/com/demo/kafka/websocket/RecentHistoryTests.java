@@ -0,0 +1,38 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.payload.KafkaMessage;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentHistoryTests {
+
+	@Test
+	void returnsGapAfterLastSeenMessage() {
+		RecentHistory history = new RecentHistory(4);
+		for (int i = 1; i <= 3; i++) {
+			record(history, "m" + i);
+		}
+
+		assertThat(history.after("m1", history.nextSequence()))
+				.extracting(entry -> entry.message().getMessageId()).containsExactly("m2", "m3");
+		assertThat(history.after("m1", 2)).extracting(entry -> entry.message().getMessageId()).containsExactly("m2");
+	}
+
+	@Test
+	void forgetsEvictedMessages() {
+		RecentHistory history = new RecentHistory(2);
+		for (int i = 1; i <= 3; i++) {
+			record(history, "m" + i);
+		}
+
+		assertThat(history.after("m1", history.nextSequence())).isNull();
+		assertThat(history.before(history.nextSequence()))
+				.extracting(entry -> entry.message().getMessageId()).containsExactly("m2", "m3");
+	}
+
+	private static void record(RecentHistory history, String messageId) {
+		KafkaMessage<String> message = KafkaMessage.<String>builder().messageId(messageId).build();
+		history.record(message, OutboundFrame.of("{}", null));
+	}
+}
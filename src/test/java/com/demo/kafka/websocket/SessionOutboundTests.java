@@ -0,0 +1,104 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.payload.PriorityLane;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SessionOutboundTests {
+
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private final WebSocketSession session = mock(WebSocketSession.class);
+
+	SessionOutboundTests() {
+		when(session.isOpen()).thenReturn(true);
+		when(session.getId()).thenReturn("s1");
+	}
+
+	@Test
+	void batchesQueuedFramesIntoOneArrayFrame() throws Exception {
+		SessionOutbound outbound = new SessionOutbound(session, 8, 8, OverflowPolicy.DROP_OLDEST, tasks::add);
+		outbound.offer(OutboundFrame.of("{\"a\":1}", null));
+		outbound.offer(OutboundFrame.of("{\"a\":2}", null));
+		runTasks();
+
+		ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+		verify(session).sendMessage(sent.capture());
+		assertThat(sent.getValue().getPayload()).isEqualTo("[{\"a\":1},{\"a\":2}]");
+	}
+
+	@Test
+	void dropOldestKeepsNewestFrames() throws Exception {
+		SessionOutbound outbound = new SessionOutbound(session, 2, 1, OverflowPolicy.DROP_OLDEST, tasks::add);
+		outbound.offer(OutboundFrame.of("1", null));
+		outbound.offer(OutboundFrame.of("2", null));
+		outbound.offer(OutboundFrame.of("3", null));
+		runTasks();
+
+		assertThat(outbound.getDropped()).isEqualTo(1);
+		verify(session).sendMessage(new TextMessage("2"));
+		verify(session).sendMessage(new TextMessage("3"));
+	}
+
+	@Test
+	void coalesceReplacesFrameWithSameKey() throws Exception {
+		SessionOutbound outbound = new SessionOutbound(session, 2, 1, OverflowPolicy.COALESCE, tasks::add);
+		outbound.offer(OutboundFrame.of("a1", "a"));
+		outbound.offer(OutboundFrame.of("b1", "b"));
+		outbound.offer(OutboundFrame.of("a2", "a"));
+		runTasks();
+
+		verify(session).sendMessage(new TextMessage("a2"));
+		verify(session).sendMessage(new TextMessage("b1"));
+		verify(session, never()).sendMessage(new TextMessage("a1"));
+	}
+
+	@Test
+	void highPriorityFramesSkipAheadAndEvictLowPriorityFirst() throws Exception {
+		SessionOutbound outbound = new SessionOutbound(session, 2, 8, OverflowPolicy.DROP_OLDEST, tasks::add);
+		outbound.offer(OutboundFrame.of("1", null, PriorityLane.LOW));
+		outbound.offer(OutboundFrame.of("2", null, PriorityLane.LOW));
+		outbound.offer(OutboundFrame.of("3", null, PriorityLane.HIGH));
+		runTasks();
+
+		verify(session).sendMessage(new TextMessage("[3,2]"));
+	}
+
+	@Test
+	void expiredFramesAreNotSent() throws Exception {
+		SessionOutbound outbound = new SessionOutbound(session, 8, 8, OverflowPolicy.DROP_OLDEST, tasks::add);
+		outbound.offer(OutboundFrame.of("1".getBytes(), null, PriorityLane.MEDIUM, System.currentTimeMillis() - 1));
+		outbound.offer(OutboundFrame.of("2".getBytes(), null, PriorityLane.MEDIUM, 0L));
+		runTasks();
+
+		verify(session).sendMessage(new TextMessage("2"));
+		verify(session, times(1)).sendMessage(any());
+	}
+
+	@Test
+	void disconnectClosesSlowSession() throws Exception {
+		SessionOutbound outbound = new SessionOutbound(session, 1, 1, OverflowPolicy.DISCONNECT, tasks::add);
+		assertThat(outbound.offer(OutboundFrame.of("1", null))).isTrue();
+		assertThat(outbound.offer(OutboundFrame.of("2", null))).isFalse();
+		runTasks();
+
+		verify(session).close(any(CloseStatus.class));
+		verify(session, never()).sendMessage(any());
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			task.run();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.demo.kafka.websocket;
+
+import com.demo.kafka.payload.KafkaMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubscriptionRegistryTests {
+
+	private final SubscriptionRegistry registry = new SubscriptionRegistry();
+
+	@Test
+	void sessionWithoutSubscriptionReceivesEverything() {
+		registry.register("s1");
+
+		assertThat(registry.route(message("ALERT", "acme"))).containsExactly("s1");
+	}
+
+	@Test
+	void routesOnlyToMatchingSubscriptions() {
+		registry.register("alerts");
+		registry.register("acme");
+		registry.register("acmeAlerts");
+		registry.subscribe("alerts", "a", Map.of("type", "ALERT"));
+		registry.subscribe("acme", "a", Map.of("headers.tenant", "acme"));
+		registry.subscribe("acmeAlerts", "a", Map.of("type", "ALERT", "headers.tenant", "acme"));
+
+		assertThat(registry.route(message("ALERT", "acme"))).containsExactlyInAnyOrder("alerts", "acme", "acmeAlerts");
+		assertThat(registry.route(message("ALERT", "other"))).containsExactly("alerts");
+		assertThat(registry.route(message("INFO", "acme"))).containsExactly("acme");
+	}
+
+	@Test
+	void unsubscribeAndUnregisterRemoveIndexEntries() {
+		registry.register("s1");
+		registry.register("s2");
+		registry.subscribe("s1", "a", Map.of("type", "ALERT"));
+		registry.subscribe("s2", "a", Map.of("type", "ALERT"));
+
+		registry.unsubscribe("s1", "a");
+		registry.unregister("s2");
+
+		assertThat(registry.route(message("ALERT", "acme"))).containsExactly("s1");
+		assertThat(registry.getSubscriptions("s2")).isEmpty();
+	}
+
+	@Test
+	void rejectsUnknownFilter() {
+		registry.register("s1");
+
+		assertThatThrownBy(() -> registry.subscribe("s1", "a", Map.of("payload", "x")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void generatesMissingSubscriptionId() {
+		registry.register("s1");
+
+		String id = registry.subscribe("s1", null, Map.of("type", "ALERT"));
+
+		assertThat(registry.getSubscriptions("s1")).containsOnlyKeys(id);
+		assertThatThrownBy(() -> registry.unsubscribe("s1", null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static KafkaMessage<String> message(String type, String tenant) {
+		return KafkaMessage.<String>builder()
+				.type(type)
+				.headers(Map.of("tenant", tenant))
+				.build();
+	}
+}